@@ -8,22 +8,19 @@ import java.awt.Component;
 import java.awt.Frame;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
@@ -33,6 +30,8 @@ import javax.sound.midi.MidiSystem;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
@@ -50,6 +49,7 @@ import jp.fourthline.mabiicco.ui.color.ScaleColor;
 import jp.fourthline.mabiicco.ui.editor.MMLTranspose;
 import jp.fourthline.mabiicco.ui.editor.MultiTracksVelocityChangeEditor;
 import jp.fourthline.mabiicco.ui.editor.MultiTracksViewEditor;
+import jp.fourthline.mabiicco.ui.editor.RecoveryJournal;
 import jp.fourthline.mabiicco.ui.editor.UserViewWidthDialog;
 import jp.fourthline.mabiicco.ui.mml.MMLExportPanel;
 import jp.fourthline.mabiicco.ui.mml.MMLImportPanel;
@@ -152,6 +152,7 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 	private final HashMap<String, Consumer<Object>> actionMap = new HashMap<>();
 
 	private File openedFile = null;
+	private RecoveryJournal recoveryJournal = null;
 
 	private final FileFilter mmsFilter = new FileNameExtensionFilter(AppResource.appText("file.mms"), "mms");
 	private final FileFilter mmiFilter = new FileNameExtensionFilter(AppResource.appText("file.mmi"), "mmi");
@@ -355,55 +356,136 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 		private final Frame parent;
 		private final File file;
 		private final IMMLFileParser parser;
-		private boolean prepare = false;
-		private boolean done = false;
-		private MMLScore score = null;
 		private FileLoader(Frame parent, File file) {
 			this.file = file;
 			this.parent = parent;
 			this.parser = IMMLFileParser.getParser(file);
 		}
-		private FileLoader prepare() {
-			if (prepare) {
-				return this;
+
+		/**
+		 * 読み込み設定のダイアログを表示します.
+		 * @return 読み込みを続ける場合は true
+		 */
+		private boolean prepare() {
+			return new ParsePropertiesDialog(parent, parser).showDialog();
+		}
+
+		/**
+		 * ファイルを読み込みます. (EDT以外から呼び出す)
+		 * @return
+		 * @throws IOException
+		 * @throws MMLParseException
+		 */
+		private MMLScore parse() throws IOException, MMLParseException {
+			try (FileInputStream in = new FileInputStream(file)) {
+				return parser.parse(in);
 			}
-			prepare = true;
-			if (!new ParsePropertiesDialog(parent, parser).showDialog()) {
-				done = true;
+		}
+
+		private void showError(Throwable e) {
+			String message;
+			if (e instanceof FileNotFoundException) {
+				message = AppResource.appText("error.nofile");
+			} else if (e instanceof MMLParseException) {
+				message = AppResource.appText("error.invalid_file");
+			} else {
+				message = e.getClass().getCanonicalName();
 			}
-			return this;
-		}
-		private MMLScore parse() {
-			if (!done) {
-				try {
-					FileInputStream in = new FileInputStream(file);
-					score = parser.parse(in);
-					in.close();
-				} catch (FileNotFoundException e) {
-					JOptionPane.showMessageDialog(parent,
-							AppResource.appText("error.nofile"),
-							AppResource.appText("error.read"),
-							JOptionPane.WARNING_MESSAGE);
-				} catch (MMLParseException e) {
-					JOptionPane.showMessageDialog(parent,
-							AppResource.appText("error.invalid_file"),
-							AppResource.appText("error.read"),
-							JOptionPane.WARNING_MESSAGE);
-				} catch (Throwable e) {
-					JOptionPane.showMessageDialog(parent,
-							e.getClass().getCanonicalName(),
-							AppResource.appText("error.read"),
-							JOptionPane.WARNING_MESSAGE);
-				}
+			JOptionPane.showMessageDialog(parent, message, AppResource.appText("error.read"), JOptionPane.WARNING_MESSAGE);
+		}
+	}
 
+	/**
+	 * ファイルの読み込みとgenerateをバックグラウンドで行い, 完了したらEDTで結果を通知します.
+	 * 読み込み中はステータスバーに状態と中止ボタンを表示します. 中止した場合は結果を破棄します.
+	 */
+	private final class FileLoadWorker extends SwingWorker<MMLScore, String> {
+		/** 中止の表示を消すまでの時間 (ms) */
+		private static final int CANCELED_STATUS_TIME = 3000;
+
+		private final FileLoader loader;
+		private final String name;
+		private final String label;
+		private final boolean generate;
+		private final Consumer<MMLScore> onLoaded;
+		private final NanoTime time = NanoTime.start();
+
+		/**
+		 * @param loader
+		 * @param name      処理名 ("open", "import"). ステータスバーには loading.<name> の文字列を表示する
+		 * @param generate  generate済みのスコアにする場合は true
+		 * @param onLoaded  スコアを読み込めた場合の処理
+		 */
+		private FileLoadWorker(FileLoader loader, String name, boolean generate, Consumer<MMLScore> onLoaded) {
+			this.loader = loader;
+			this.name = name;
+			this.label = AppResource.appText("loading." + name);
+			this.generate = generate;
+			this.onLoaded = onLoaded;
+		}
+
+		@Override
+		protected MMLScore doInBackground() throws Exception {
+			publish("loading.parse");
+			MMLScore score = loader.parse();
+			if ( generate && (score != null) && !isCancelled() ) {
 				// mabiicco由来のファイルであれば, generateされたものにする.
-				if (score != null) {
-					score = score.toGeneratedScore(MabiIccoProperties.getInstance().reGenerateWithOpen.get());
-				}
-				done = true;
+				publish("loading.generate");
+				score = score.toGeneratedScore(appProperties.reGenerateWithOpen.get());
 			}
 			return score;
 		}
+
+		@Override
+		protected void process(List<String> chunks) {
+			if (!isDone()) {
+				String stage = AppResource.appText(chunks.get(chunks.size()-1));
+				mainFrame.setStatusProgress(label + ": " + stage + " " + loader.file.getName(), () -> cancel(true));
+			}
+		}
+
+		@Override
+		protected void done() {
+			if (fileLoadWorker == this) {
+				fileLoadWorker = null;
+			}
+			if (isCancelled()) {
+				String text = label + ": " + AppResource.appText("loading.canceled");
+				mainFrame.setStatusProgress(text, null);
+				Timer timer = new Timer(CANCELED_STATUS_TIME, e -> mainFrame.clearStatusText(text));
+				timer.setRepeats(false);
+				timer.start();
+				return;
+			}
+			mainFrame.setStatusProgress("", null);
+			try {
+				MMLScore score = get();
+				if (score != null) {
+					onLoaded.accept(score);
+				}
+			} catch (ExecutionException e) {
+				loader.showError(e.getCause());
+			} catch (InterruptedException e) {}
+			showTime(name, time);
+		}
+	}
+
+	/** 読み込み中のファイル */
+	private FileLoadWorker fileLoadWorker = null;
+
+	/**
+	 * ファイルをバックグラウンドで読み込みます. 読み込み中の別のファイルは中止します.
+	 */
+	private void loadFile(File file, String name, boolean generate, Consumer<MMLScore> onLoaded) {
+		var loader = new FileLoader(mainFrame, file);
+		if (!loader.prepare()) {
+			return;
+		}
+		if (fileLoadWorker != null) {
+			fileLoadWorker.cancel(true);
+		}
+		fileLoadWorker = new FileLoadWorker(loader, name, generate, onLoaded);
+		fileLoadWorker.execute();
 	}
 
 	private void fileOpenWithHistory(Object o) {
@@ -428,21 +510,44 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 	}
 
 	private void openMMLFile(File file) {
-		var loader = new FileLoader(mainFrame, file).prepare();
-		NanoTime time = NanoTime.start();
-		MMLScore score = loader.parse();
-		if ( (score != null) && (score.getTrackCount() > 0) ) {
+		// 変更確認を済ませた時点の状態. 読み込み中に編集されたかどうかの判定に使う.
+		long fingerprint = mmlSeqView.getMMLScore().fingerprint();
+		// 再generateしない場合は, 先に表示してからトラックごとにバックグラウンドで generate する.
+		boolean lazy = !appProperties.reGenerateWithOpen.get();
+		loadFile(file, "open", !lazy, score -> {
+			if ( (score.getTrackCount() == 0) || !checkReplaceLoadedScore(fingerprint) ) {
+				return;
+			}
 			// ミュートボタンの状態を反映させるために, 先にミュート解除する.
 			MabiDLS.getInstance().all();
 			mmlSeqView.setMMLScore(score);
+			if (lazy) {
+				mmlSeqView.generateInBackground();
+			}
 
 			openedFile = file;
 			notifyUpdateFileState();
 			appProperties.setRecentFile(file.getPath());
 			appProperties.setFileHistory(file);
 			mainFrame.updateFileHistoryMenu();
+		});
+	}
+
+	/**
+	 * 読み込んだスコアに置き換える前の確認. 読み込み中に編集されていれば変更の確認を再度行い, 再生中であれば停止します.
+	 * @param fingerprint  読み込み開始時のスコアのフィンガープリント
+	 * @return 置き換えてよい場合は true
+	 */
+	private boolean checkReplaceLoadedScore(long fingerprint) {
+		if ( fileState.isModified() && (mmlSeqView.getMMLScore().fingerprint() != fingerprint) ) {
+			if (!checkCloseModifiedFileState()) {
+				return false;
+			}
 		}
-		showTime("open", time);
+		if (MabiDLS.getInstance().getSequencer().isRunning()) {
+			stopAction();
+		}
+		return true;
 	}
 
 	private void reloadMMLFileAction() {
@@ -467,6 +572,9 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 	private void quitAction() {
 		//  閉じる前に、変更が保存されていなければダイアログ表示する.
 		if (checkCloseModifiedFileState()) {
+			if (recoveryJournal != null) {
+				recoveryJournal.close();
+			}
 			System.exit(0);
 		}
 	}
@@ -628,16 +736,12 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 
 	public void fileImport(File file) {
 		if (file != null) {
-			var loader = new FileLoader(mainFrame, file).prepare();
-			NanoTime time = NanoTime.start();
-			MMLScore score = loader.parse();
-			showTime("import", time);
-			if (score != null) {
+			loadFile(file, "import", true, score -> {
 				appProperties.setRecentFile(file.getPath());
 				// 新規ファイルに何も変更していない状態でインポートする場合は既存トラックを削除する
 				boolean newImport = (openedFile == null) && (!fileState.isModified());
 				new MMLImportPanel(mainFrame, score, mmlSeqView, newImport).showDialog();
-			}
+			});
 		}
 	}
 
@@ -739,6 +843,10 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 			}
 		}
 
+		if (recoveryJournal != null) {
+			recoveryJournal.setFileName((openedFile != null) ? openedFile.getAbsolutePath() : "");
+		}
+
 		// undo-UI更新
 		mainFrame.setCanUndo(fileState.canUndo());
 
@@ -765,60 +873,50 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 	}
 
 	/**
-	 * データ復旧.
+	 * データ復旧. 前回の復旧用ジャーナルが残っていれば復旧し, 新しいジャーナルへの記録を開始します.
 	 * @return 復旧処理を実行したとき trueを返す.
 	 */
 	public boolean recoveryCheck() {
-		File recoveryFile = new File(AppResource.appText("recover.filename"));
-		if (recoveryFile.exists()) {
+		// 別のプロセスが使用中の場合は, 復旧もジャーナルへの記録も行わない.
+		File journalFile = new File(AppResource.appText("recover.filename"));
+		RecoveryJournal journal = RecoveryJournal.lock(journalFile);
+		if (journal == null) {
+			return false;
+		}
+		boolean result = false;
+		if (journal.exists()) {
 			int status = JOptionPane.showConfirmDialog(mainFrame,
-					AppResource.appText("recover.message")+"\n"+recoveryFile.getName(),
+					AppResource.appText("recover.message")+"\n"+journalFile.getName(),
 					AppResource.appText("recover.title"),
 					JOptionPane.YES_NO_OPTION);
-			if (status != JOptionPane.OK_OPTION) {
-				File renameFile = new File(recoveryFile.getAbsolutePath()+".bak");
-				renameFile.delete();
-				recoveryFile.renameTo(renameFile);
-				return false;
-			}
-			try {
-				BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(recoveryFile), StandardCharsets.UTF_8));
-				String filename = reader.readLine();
-				String data = reader.readLine();
-				reader.close();
-				recoveryFile.delete();
-				boolean result = mmlSeqView.recovery(data);
+			if (status == JOptionPane.OK_OPTION) {
+				result = mmlSeqView.recovery(journal);
 				if (!result) {
 					JOptionPane.showMessageDialog(mainFrame,
 							"recover.fail", "recover.title", JOptionPane.WARNING_MESSAGE);
+					journal.backup();
 				}
+				String filename = journal.getRecoveredFileName();
 				if ( result && (filename.length() > 0) ) {
 					openedFile = new File(filename);
 				}
-				notifyUpdateFileState();
-				return result;
-			} catch (IOException e) {}
+			} else {
+				journal.backup();
+			}
 		}
-		return false;
+		recoveryJournal = journal;
+		mmlSeqView.setRecoveryJournal(journal);
+		notifyUpdateFileState();
+		return result;
 	}
 
 	/**
-	 * 復旧用データを書き出す.
+	 * 復旧用ジャーナルの書き込みを待つ.
 	 */
 	public void writeRecoveryData() {
-		String filename = "";
-		if (openedFile != null) {
-			filename = openedFile.getAbsolutePath();
+		if (recoveryJournal != null) {
+			recoveryJournal.flush();
 		}
-		String data = mmlSeqView.getRecoveryData();
-
-		try {
-			File recoveryFile = new File(AppResource.appText("recover.filename"));
-			PrintStream printStream = new PrintStream(new FileOutputStream(recoveryFile), false, StandardCharsets.UTF_8);
-			printStream.println(filename);
-			printStream.println(data);
-			printStream.close();
-		} catch (IOException e) {}
 	}
 
 	public void showTime(String name, long ms) {
@@ -832,6 +930,19 @@ public final class ActionDispatcher implements ActionListener, IFileStateObserve
 		showTime(name, time.ms());
 	}
 
+	/**
+	 * 再生中の表示更新にかかった時間を表示します.
+	 * @param frames     フレーム数
+	 * @param averageUs  平均 (us)
+	 * @param maxUs      最大 (us)
+	 */
+	public void showFrameTime(long frames, long averageUs, long maxUs) {
+		if (mainFrame != null) {
+			String text = String.format("frame %d, avg %.1fms, max %.1fms", frames, averageUs / 1000.0, maxUs / 1000.0);
+			mainFrame.setStatusText(text);
+		}
+	}
+
 	private void inputEmptyCorrection() {
 		String value = JOptionPane.showInputDialog(mainFrame, AppResource.appText("mml.emptyCorrection"), appProperties.mmlEmptyCorrection.get());
 		if (value != null) {
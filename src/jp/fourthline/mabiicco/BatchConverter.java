@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.sound.midi.MidiSystem;
+
+import jp.fourthline.mabiicco.midi.MabiDLS;
+import jp.fourthline.mmlTools.MMLScore;
+import jp.fourthline.mmlTools.MMLScoreSerializer;
+import jp.fourthline.mmlTools.MMLTrack;
+import jp.fourthline.mmlTools.core.MMLException;
+import jp.fourthline.mmlTools.core.NanoTime;
+import jp.fourthline.mmlTools.parser.IMMLFileParser;
+import jp.fourthline.mmlTools.parser.MidiFile;
+
+/**
+ * UIを使わずに, ファイルをまとめて変換します.
+ * <pre>
+ * java -cp MabiIcco.jar jp.fourthline.mabiicco.BatchConverter [-f mmi,mid,mabi] [-j threads] -o outDir input...
+ *   input   変換するファイル, またはディレクトリ (.mmi, .mms, .mml, .mid, .txt を再帰的に探す)
+ *   -o      出力先ディレクトリ. 入力ディレクトリからの相対パスで出力する.
+ *           出力ファイル名は入力ファイル名に形式の拡張子を付けたもの (song.mml → song.mml.mid)
+ *   -f      出力形式 (既定: mmi,mid)
+ *             mmi  MabiIccoのファイル
+ *             mid  MIDIファイル
+ *             mabi マビノギ用のMML (トラックごとに1行)
+ *   -j      並列数 (既定: CPU数)
+ * </pre>
+ * 楽器情報は楽器定義のテーブルから作成し, シンセサイザやDLSファイルは使用しません.
+ * 同時に処理するファイルは並列数までのため, メモリ使用量は並列数で制限されます.
+ * 出力先が他のファイルの出力先, または入力ファイルと重なるファイルは変換せずにエラーとします.
+ */
+public final class BatchConverter {
+	public enum Format {
+		MMI(".mmi"), MID(".mid"), MABI(".mabi.txt");
+
+		private final String suffix;
+		Format(String suffix) {
+			this.suffix = suffix;
+		}
+
+		/**
+		 * @param name  "mmi", "mid", "mabi"
+		 * @throws IllegalArgumentException
+		 */
+		static Format of(String name) {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		}
+	}
+
+	private static final String[] INPUT_SUFFIX = { ".mmi", ".mms", ".mml", ".mid", ".txt" };
+
+	private final Path outDir;
+	private final EnumSet<Format> formats;
+	private final int threads;
+	private final PrintStream out;
+
+	private final AtomicInteger okCount = new AtomicInteger();
+	private final AtomicInteger errCount = new AtomicInteger();
+
+	private static boolean initialized = false;
+
+	public BatchConverter(Path outDir, EnumSet<Format> formats, int threads, PrintStream out) {
+		this.outDir = outDir;
+		this.formats = formats;
+		this.threads = Math.max(threads, 1);
+		this.out = out;
+		initialize();
+	}
+
+	/**
+	 * 楽器情報の登録. (シンセサイザは初期化しない)
+	 */
+	static synchronized void initialize() {
+		if (initialized) {
+			return;
+		}
+		initialized = true;
+		MabiIccoProperties.getInstance();
+		MMLException.setLocalizeFunc(t -> AppResource.appText(t));
+		MabiDLS dls = MabiDLS.getInstance();
+		dls.loadingInstTable();
+		MMLTrack.setTempoAllowChardPartFunction(t -> {
+			var inst = dls.getInstByProgram(t);
+			if (inst != null) {
+				return inst.getType().allowTempoChordPart();
+			}
+			return true;
+		});
+		MidiFile.enableInstPatch();
+	}
+
+	private static boolean isInputFile(Path path) {
+		String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+		for (String suffix : INPUT_SUFFIX) {
+			if (name.endsWith(suffix) && !name.endsWith(Format.MABI.suffix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 指定されたファイル, ディレクトリ以下のファイルを変換します.
+	 * @param inputs
+	 * @return エラーがなければ true
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public boolean convert(List<Path> inputs) throws IOException, InterruptedException {
+		NanoTime time = NanoTime.start();
+		Map<Path, Path> files = listFiles(inputs);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "BatchConverter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			files.forEach((input, output) -> executor.submit(() -> convertFile(input, output)));
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		}
+
+		out.printf("done: %d files, %d errors, %d ms\n", okCount.get() + errCount.get(), errCount.get(), time.ms());
+		return errCount.get() == 0;
+	}
+
+	/**
+	 * 変換する入力ファイルと, 出力ファイル名 (形式の拡張子を除く) を列挙します.
+	 * 出力先が重なるファイルはエラーとして数え, 変換対象から除きます.
+	 * @param inputs
+	 * @return 入力ファイル → 出力ファイル名 (入力順)
+	 * @throws IOException
+	 */
+	Map<Path, Path> listFiles(List<Path> inputs) throws IOException {
+		LinkedHashMap<Path, Path> files = new LinkedHashMap<>();
+		for (Path input : inputs) {
+			if (Files.isDirectory(input)) {
+				try (Stream<Path> stream = Files.walk(input)) {
+					stream.filter(t -> Files.isRegularFile(t) && isInputFile(t)).sorted()
+					.forEach(t -> files.put(t, outDir.resolve(input.relativize(t))));
+				}
+			} else {
+				files.put(input, outDir.resolve(input.getFileName()));
+			}
+		}
+
+		HashSet<Path> inputSet = new HashSet<>();
+		files.keySet().forEach(t -> inputSet.add(t.toAbsolutePath().normalize()));
+		HashSet<Path> outputSet = new HashSet<>();
+		var it = files.entrySet().iterator();
+		while (it.hasNext()) {
+			var entry = it.next();
+			Path output = entry.getValue();
+			boolean conflict = !outputSet.add(output.toAbsolutePath().normalize());
+			for (Format format : formats) {
+				conflict |= inputSet.contains(outputPath(output, format).toAbsolutePath().normalize());
+			}
+			if (conflict) {
+				it.remove();
+				errCount.incrementAndGet();
+				out.printf("ERR %s: output conflicts with another file: %s\n", entry.getKey(), output);
+			}
+		}
+		return files;
+	}
+
+	private static Path outputPath(Path output, Format format) {
+		return output.resolveSibling(output.getFileName() + format.suffix);
+	}
+
+	private void convertFile(Path input, Path output) {
+		NanoTime time = NanoTime.start();
+		try {
+			MMLScore score = parse(input);
+			long parseTime = time.ms();
+			score.generateAll();
+
+			Files.createDirectories(output.toAbsolutePath().getParent());
+			for (Format format : formats) {
+				try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(outputPath(output, format)))) {
+					write(score, format, outputStream);
+				}
+			}
+			okCount.incrementAndGet();
+			out.printf("OK  %6d ms (parse %d ms) %s\n", time.ms(), parseTime, input);
+		} catch (Throwable e) {
+			errCount.incrementAndGet();
+			out.printf("ERR %6d ms %s: %s\n", time.ms(), input, e);
+		}
+	}
+
+	/**
+	 * ファイルを読み込みます.
+	 * @param input
+	 * @return 1つ以上のトラックを持つスコア
+	 * @throws Exception
+	 */
+	static MMLScore parse(Path input) throws Exception {
+		MMLScore score;
+		try (InputStream in = Files.newInputStream(input)) {
+			score = IMMLFileParser.getParser(input.toFile()).parse(in);
+		}
+		if ( (score == null) || (score.getTrackCount() == 0) ) {
+			throw new IOException("no track");
+		}
+		return score;
+	}
+
+	static void write(MMLScore score, Format format, OutputStream outputStream) throws Exception {
+		switch (format) {
+		case MMI:
+			new MMLScoreSerializer(score).writeToOutputStream(outputStream);
+			break;
+		case MID:
+			MidiSystem.write(MabiDLS.getInstance().createSequenceForMidi(score), 1, outputStream);
+			break;
+		case MABI:
+			PrintStream printStream = new PrintStream(outputStream, false, StandardCharsets.UTF_8);
+			for (MMLTrack track : score.getTrackList()) {
+				printStream.println(track.getTrackName());
+				printStream.println(track.getMabiMML());
+			}
+			printStream.flush();
+			break;
+		}
+	}
+
+	private static void usage() {
+		System.err.println("usage: BatchConverter [-f mmi,mid,mabi] [-j threads] -o outDir input...");
+	}
+
+	/**
+	 * @param args
+	 * @return 終了コード
+	 */
+	public static int run(String[] args) {
+		Path outDir = null;
+		EnumSet<Format> formats = EnumSet.of(Format.MMI, Format.MID);
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<Path> inputs = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-o":
+					outDir = Path.of(args[++i]);
+					break;
+				case "-j":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				case "-f":
+					formats.clear();
+					for (String s : args[++i].split(",")) {
+						formats.add(Format.of(s));
+					}
+					break;
+				default:
+					inputs.add(Path.of(args[i]));
+				}
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			usage();
+			return 2;
+		}
+		if ( (outDir == null) || inputs.isEmpty() ) {
+			usage();
+			return 2;
+		}
+
+		try {
+			return new BatchConverter(outDir, formats, threads, System.out).convert(inputs) ? 0 : 1;
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		System.exit(run(args));
+	}
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jp.fourthline.mabiicco.BatchConverter.Format;
+import jp.fourthline.mmlTools.MMLBuilder;
+import jp.fourthline.mmlTools.MMLEventList;
+import jp.fourthline.mmlTools.MMLScore;
+import jp.fourthline.mmlTools.MMLTrack;
+import jp.fourthline.mmlTools.core.MMLText;
+import jp.fourthline.mmlTools.core.NanoTime;
+import jp.fourthline.mmlTools.optimizer.MMLStringOptimizer;
+
+/**
+ * 常駐して変換要求を処理するサービス.
+ * <pre>
+ * java -cp MabiIcco.jar jp.fourthline.mabiicco.ConversionService [-j threads] [-port n]
+ *   -j      並列数 (既定: CPU数)
+ *   -port   指定したポート (127.0.0.1) で接続を待つ. 省略時は標準入出力を使用する.
+ *
+ * 要求・応答は1行1つのJSONオブジェクトです. 応答は処理の終わった順に返すため, "id" で対応をとります.
+ *   {"id":1, "op":"convert", "path":"a.mmi", "format":"mabi"}          → "result" に変換結果 (mmi, mabi)
+ *   {"id":2, "op":"convert", "path":"a.mmi", "format":"mid", "out":"a.mid"} → "out" に出力
+ *   {"id":3, "op":"generate", "mml":"MML@cde,eg,c;", "program":0}     → "result" にマビノギ用MML, "rank"
+ *   {"id":4, "op":"rank", "mml":"MML@cde,eg,c;"}                         → "rank"
+ *   {"id":5, "op":"optimize", "mml":"o4c8d8e8"}                           → "result" に最適化したMML
+ *   {"id":6, "op":"stats"}                                               → 要求の種類ごとの件数, 処理時間
+ * 応答には "ok" と処理時間 "us" が付きます. 失敗した場合は "ok":false と "error" が付きます.
+ * </pre>
+ * 起動時に楽器情報, Tickテーブル, ランク表を読み込むため, 要求ごとの初期化は発生しません.
+ * 処理待ちの要求が並列数を超えると, 要求の読み込みを待たせます.
+ */
+public final class ConversionService {
+
+	/**
+	 * 要求の種類ごとの処理時間.
+	 */
+	private static final class Stats {
+		private long count;
+		private long errors;
+		private long totalNs;
+		private long maxNs;
+
+		private synchronized void add(long ns, boolean ok) {
+			count++;
+			if (!ok) {
+				errors++;
+			}
+			totalNs += ns;
+			maxNs = Math.max(maxNs, ns);
+		}
+
+		private synchronized void put(String op, JsonLine response) {
+			response.put(op + ".count", count);
+			response.put(op + ".errors", errors);
+			response.put(op + ".avg_us", (count > 0) ? (totalNs / count / 1000) : 0);
+			response.put(op + ".max_us", maxNs / 1000);
+		}
+	}
+
+	private static final List<String> OPS = List.of("convert", "generate", "rank", "optimize", "stats");
+
+	private final ExecutorService executor;
+	private final Map<String, Stats> statsMap = new TreeMap<>();
+
+	public ConversionService(int threads) {
+		BatchConverter.initialize();
+		warmUp();
+		threads = Math.max(threads, 1);
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 2),
+				r -> {
+					Thread thread = new Thread(r, "ConversionService");
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * 初回要求の遅延をなくすため, MMLの生成を一度行います.
+	 */
+	private static void warmUp() {
+		try {
+			new MMLTrack().setMML("MML@t150l8cdefgab>c,eg,c;").generate().mmlRankFormat();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private Stats stats(String op) {
+		synchronized (statsMap) {
+			return statsMap.computeIfAbsent(op, t -> new Stats());
+		}
+	}
+
+	/**
+	 * 入力ストリームの要求を, 終端まで処理します. 全ての応答を書き込んでから戻ります.
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void serve(InputStream in, OutputStream out) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		PrintStream writer = new PrintStream(new BufferedOutputStream(out), false, StandardCharsets.UTF_8);
+		Phaser phaser = new Phaser(1);
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				String request = line;
+				phaser.register();
+				executor.execute(() -> {
+					try {
+						String response = handle(request);
+						synchronized (writer) {
+							writer.println(response);
+							writer.flush();
+						}
+					} finally {
+						phaser.arriveAndDeregister();
+					}
+				});
+			}
+		} finally {
+			phaser.arriveAndAwaitAdvance();
+			writer.flush();
+		}
+	}
+
+	/**
+	 * 1つの要求を処理します.
+	 * @param line  要求 (JSON)
+	 * @return      応答 (JSON)
+	 */
+	String handle(String line) {
+		NanoTime time = NanoTime.start();
+		JsonLine response = new JsonLine();
+		String op = "invalid";
+		boolean ok = false;
+		try {
+			JsonLine request = JsonLine.parse(line);
+			response.put("id", request.get("id"));
+			response.put("ok", true);
+			String requestOp = request.getString("op");
+			if ( (requestOp == null) || !OPS.contains(requestOp) ) {
+				throw new IllegalArgumentException("unknown op: " + requestOp);
+			}
+			op = requestOp;
+			execute(op, request, response);
+			ok = true;
+		} catch (Throwable e) {
+			Object id = response.get("id");
+			response = new JsonLine().put("id", id).put("ok", false).put("error", e.toString());
+		}
+		long ns = time.ns();
+		stats(op).add(ns, ok);
+		return response.put("us", ns / 1000).toString();
+	}
+
+	private static String requireString(JsonLine request, String key) {
+		String s = request.getString(key);
+		if (s == null) {
+			throw new IllegalArgumentException("no " + key);
+		}
+		return s;
+	}
+
+	private void execute(String op, JsonLine request, JsonLine response) throws Exception {
+		switch (op) {
+		case "convert":
+			convert(request, response);
+			break;
+		case "generate": {
+			MMLTrack track = new MMLTrack().setMML(requireString(request, "mml"));
+			track.setProgram(request.getInt("program", 0));
+			track.generate();
+			response.put("result", track.getMabiMML());
+			response.put("rank", track.mmlRankFormat());
+			break;
+		}
+		case "rank":
+			response.put("rank", new MMLText().setMMLText(requireString(request, "mml")).mmlRankFormat());
+			break;
+		case "optimize": {
+			// 最適化の入力は MMLBuilder の出力形式である必要があるため, 一度 MMLEventList に変換する.
+			String mml = MMLBuilder.create(new MMLEventList(requireString(request, "mml"))).toMMLString(true, true);
+			response.put("result", new MMLStringOptimizer(mml).preciseOptimize());
+			break;
+		}
+		case "stats":
+			synchronized (statsMap) {
+				statsMap.forEach((key, value) -> value.put(key, response));
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("unknown op: " + op);
+		}
+	}
+
+	private void convert(JsonLine request, JsonLine response) throws Exception {
+		Path input = Path.of(requireString(request, "path"));
+		String formatName = request.getString("format");
+		Format format = (formatName != null) ? Format.of(formatName) : Format.MABI;
+		String out = request.getString("out");
+		if ( (out == null) && (format == Format.MID) ) {
+			throw new IllegalArgumentException("no out");
+		}
+
+		MMLScore score = BatchConverter.parse(input);
+		score.generateAll();
+		if (out != null) {
+			Path output = Path.of(out).toAbsolutePath();
+			Files.createDirectories(output.getParent());
+			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output))) {
+				BatchConverter.write(score, format, outputStream);
+			}
+			response.put("out", output.toString());
+		} else {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			BatchConverter.write(score, format, outputStream);
+			response.put("result", outputStream.toString(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * ローカルのポートで接続を待ち, 接続ごとに要求を処理します.
+	 * @param port
+	 * @throws IOException
+	 */
+	public void listen(int port) throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			System.err.println("ConversionService: listen " + serverSocket.getLocalSocketAddress());
+			while (true) {
+				Socket socket = serverSocket.accept();
+				Thread thread = new Thread(() -> {
+					try (socket) {
+						serve(socket.getInputStream(), socket.getOutputStream());
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}, "ConversionService-connection");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	private static void usage() {
+		System.err.println("usage: ConversionService [-j threads] [-port n]");
+	}
+
+	/**
+	 * @param args
+	 * @return 終了コード
+	 */
+	public static int run(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int port = -1;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "-j":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				case "-port":
+					port = Integer.parseInt(args[++i]);
+					break;
+				default:
+					usage();
+					return 2;
+				}
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			usage();
+			return 2;
+		}
+
+		// パーサなどの標準出力へのログが応答に混ざらないように, 標準エラーへ切り替える.
+		PrintStream stdout = System.out;
+		System.setOut(System.err);
+		try {
+			ConversionService service = new ConversionService(threads);
+			if (port >= 0) {
+				service.listen(port);
+			} else {
+				service.serve(System.in, stdout);
+			}
+			return 0;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return 1;
+		}
+	}
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		System.exit(run(args));
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 1行1オブジェクトのJSON (JSON Lines) の読み書き.
+ * <pre>
+ * ConversionService の要求/応答用で, 入れ子のないオブジェクトのみを扱います.
+ * 値は String, Long, Double, Boolean, null として読みます.
+ * </pre>
+ */
+final class JsonLine {
+	private final Map<String, Object> map;
+
+	JsonLine() {
+		this(new LinkedHashMap<>());
+	}
+
+	private JsonLine(Map<String, Object> map) {
+		this.map = map;
+	}
+
+	JsonLine put(String key, Object value) {
+		map.put(key, value);
+		return this;
+	}
+
+	Object get(String key) {
+		return map.get(key);
+	}
+
+	String getString(String key) {
+		Object o = map.get(key);
+		return (o != null) ? o.toString() : null;
+	}
+
+	int getInt(String key, int defaultValue) {
+		Object o = map.get(key);
+		return (o instanceof Number) ? ((Number) o).intValue() : defaultValue;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for (var entry : map.entrySet()) {
+			if (sb.length() > 1) {
+				sb.append(',');
+			}
+			appendString(sb, entry.getKey());
+			sb.append(':');
+			Object value = entry.getValue();
+			if ( (value == null) || (value instanceof Number) || (value instanceof Boolean) ) {
+				sb.append(value);
+			} else {
+				appendString(sb, value.toString());
+			}
+		}
+		return sb.append('}').toString();
+	}
+
+	private static void appendString(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"':  sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * 1行のJSONオブジェクトを読みます.
+	 * @param line
+	 * @return
+	 * @throws IllegalArgumentException 形式が正しくない場合
+	 */
+	static JsonLine parse(String line) {
+		return new Parser(line).parseObject();
+	}
+
+	private static final class Parser {
+		private final String s;
+		private int pos = 0;
+
+		private Parser(String s) {
+			this.s = s;
+		}
+
+		private IllegalArgumentException error() {
+			return new IllegalArgumentException("invalid json at " + pos);
+		}
+
+		private void skipSpace() {
+			while ( (pos < s.length()) && Character.isWhitespace(s.charAt(pos)) ) {
+				pos++;
+			}
+		}
+
+		private char next() {
+			skipSpace();
+			if (pos >= s.length()) {
+				throw error();
+			}
+			return s.charAt(pos++);
+		}
+
+		private void expect(char c) {
+			if (next() != c) {
+				throw error();
+			}
+		}
+
+		private JsonLine parseObject() {
+			var map = new LinkedHashMap<String, Object>();
+			expect('{');
+			skipSpace();
+			if ( (pos < s.length()) && (s.charAt(pos) == '}') ) {
+				pos++;
+			} else {
+				char c;
+				do {
+					expect('"');
+					String key = parseString();
+					expect(':');
+					map.put(key, parseValue());
+				} while ((c = next()) == ',');
+				if (c != '}') {
+					throw error();
+				}
+			}
+			skipSpace();
+			if (pos != s.length()) {
+				throw error();
+			}
+			return new JsonLine(map);
+		}
+
+		private Object parseValue() {
+			char c = next();
+			if (c == '"') {
+				return parseString();
+			} else if (s.startsWith("true", pos-1)) {
+				pos += 3;
+				return Boolean.TRUE;
+			} else if (s.startsWith("false", pos-1)) {
+				pos += 4;
+				return Boolean.FALSE;
+			} else if (s.startsWith("null", pos-1)) {
+				pos += 3;
+				return null;
+			} else if ( (c == '-') || ((c >= '0') && (c <= '9')) ) {
+				int start = pos-1;
+				while ( (pos < s.length()) && ("+-.eE0123456789".indexOf(s.charAt(pos)) >= 0) ) {
+					pos++;
+				}
+				String num = s.substring(start, pos);
+				try {
+					if ( (num.indexOf('.') >= 0) || (num.indexOf('e') >= 0) || (num.indexOf('E') >= 0) ) {
+						return Double.valueOf(num);
+					}
+					return Long.valueOf(num);
+				} catch (NumberFormatException e) {
+					throw error();
+				}
+			}
+			throw error();
+		}
+
+		private String parseString() {
+			StringBuilder sb = new StringBuilder();
+			while (pos < s.length()) {
+				char c = s.charAt(pos++);
+				if (c == '"') {
+					return sb.toString();
+				} else if (c == '\\') {
+					if (pos >= s.length()) {
+						break;
+					}
+					char e = s.charAt(pos++);
+					switch (e) {
+					case 'n': sb.append('\n'); break;
+					case 'r': sb.append('\r'); break;
+					case 't': sb.append('\t'); break;
+					case 'b': sb.append('\b'); break;
+					case 'f': sb.append('\f'); break;
+					case 'u':
+						if (pos + 4 > s.length()) {
+							throw error();
+						}
+						try {
+							sb.append((char) Integer.parseInt(s.substring(pos, pos+4), 16));
+						} catch (NumberFormatException ex) {
+							throw error();
+						}
+						pos += 4;
+						break;
+					default:
+						sb.append(e);
+					}
+				} else {
+					sb.append(c);
+				}
+			}
+			throw error();
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.sound.midi.InvalidMidiDataException;
@@ -122,17 +123,26 @@ public final class MabiIcco {
 	private boolean tryloadDLSFiles(double initialProgress, double endProgress) throws InvalidMidiDataException, IOException {
 		List<File> dlsFiles = appProperties.getDlsFile();
 		double progressStep = (endProgress - initialProgress) / dlsFiles.size();
-		double progress = initialProgress;
-		for (File file : dlsFiles) {
-			dls.loadingDLSFile(file);
-			progress += progressStep;
-			splash.updateProgress("", (int)progress);
-		}
+		double[] progress = { initialProgress };
+		dls.loadingDLSFiles(dlsFiles, () -> {
+			progress[0] += progressStep;
+			splash.updateProgress("", (int)progress[0]);
+		});
 
 		return dls.getAvailableInstByInstType(InstType.MAIN_INST_LIST).length > 0;
 	}
 
 	public static void main(String[] args) {
+		if ( (args.length > 0) && (args[0].equals("-batch")) ) {
+			// UIを使わずにファイルを変換する.
+			BatchConverter.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if ( (args.length > 0) && (args[0].equals("-service")) ) {
+			// 常駐して変換要求を処理する.
+			ConversionService.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		try {
 			var properties = MabiIccoProperties.getInstance();
 			if (properties.uiscaleDisable.get()) {
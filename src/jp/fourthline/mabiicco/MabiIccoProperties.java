@@ -8,13 +8,21 @@ import java.awt.Rectangle;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.InvalidPropertiesFormatException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -385,10 +393,27 @@ public final class MabiIccoProperties {
 		}
 	}
 
+	/**
+	 * 設定ファイルの読み込みと書き込み.
+	 * 変更は一定時間 (QUIET_PERIOD) 変更がなくなってからバックグラウンドでまとめて書き込みます. 終了時には未書き込みの変更を書き込みます.
+	 */
 	private static final class PreloadedProperties extends Properties {
 		private static final long serialVersionUID = 7450043736414817020L;
+		/** 最後の変更から書き込みまでの時間 (ms) */
+		private static final long QUIET_PERIOD = 500;
+		/** 最初の変更から書き込みまでの最大時間 (ms) */
+		private static final long MAX_DELAY = 3000;
+
 		private final boolean test_mode;
 		private final String path;
+
+		private final transient Object saveLock = new Object();
+		private final transient Object writeLock = new Object();
+		private transient ScheduledExecutorService executor = null;
+		private transient ScheduledFuture<?> pending = null;
+		private boolean dirty = false;
+		private long dirtySince = 0;
+
 		private PreloadedProperties() {
 			test_mode = System.getProperty("mabiicco.test_mode") != null;
 			path = ResourceLoader.getAppConfigPath(CONFIG_FILE);
@@ -402,19 +427,71 @@ public final class MabiIccoProperties {
 				} catch (IOException e) {
 					e.printStackTrace();
 				}
+				Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "MabiIccoProperties-flush"));
 			}
 		}
 
+		/**
+		 * 変更を書き込み予約します.
+		 */
 		private void save() {
-			if (!test_mode) {
+			if (test_mode) {
+				return;
+			}
+			synchronized (saveLock) {
+				long now = System.currentTimeMillis();
+				if (!dirty) {
+					dirty = true;
+					dirtySince = now;
+				}
+				if (executor == null) {
+					executor = Executors.newSingleThreadScheduledExecutor(r -> {
+						Thread thread = new Thread(r, "MabiIccoProperties");
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+				if (pending != null) {
+					pending.cancel(false);
+				}
+				long delay = Math.min(QUIET_PERIOD, Math.max(0, dirtySince + MAX_DELAY - now));
+				pending = executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * 未書き込みの変更があれば書き込みます. 一時ファイルに書いてから置き換えます.
+		 * 書き込み中の変更は次の書き込みで保存し, 書き込みに失敗した場合は未書き込みのままにします.
+		 */
+		private void flush() {
+			synchronized (writeLock) {
+				synchronized (saveLock) {
+					if (!dirty) {
+						return;
+					}
+					dirty = false;
+					pending = null;
+				}
+				Path target = Path.of(path);
+				Path temp = Path.of(path + ".tmp");
 				try {
-					FileOutputStream out = new FileOutputStream(path);
-					store(out, "");
-					out.close();
-				} catch (FileNotFoundException e) {
-					e.printStackTrace();
+					try (OutputStream out = Files.newOutputStream(temp)) {
+						store(out, "");
+					}
+					try {
+						Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} catch (AtomicMoveNotSupportedException e) {
+						Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+					}
 				} catch (IOException e) {
 					e.printStackTrace();
+					// 書き込めなかった変更は, 次の変更時または終了時に再度書き込む.
+					synchronized (saveLock) {
+						if (!dirty) {
+							dirty = true;
+							dirtySince = System.currentTimeMillis();
+						}
+					}
 				}
 			}
 		}
@@ -9,9 +9,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
 
 import javax.sound.midi.Instrument;
 import javax.sound.midi.InvalidMidiDataException;
@@ -136,6 +138,11 @@ public final class InstClass {
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		return bank * 31 + program;
+	}
+
 	public int getBank() {
 		return this.bank;
 	}
@@ -380,14 +387,52 @@ public final class InstClass {
 		}
 	}
 
+	/**
+	 * 楽器定義 (instrument.properties) のプログラム番号から, 音源データを持たない楽器リストを作成します.
+	 * シンセサイザやDLSファイルを使わずに, 楽器の種類と有効なパートを参照するために使用します.
+	 * @return プログラム番号順の楽器リスト
+	 */
+	public static List<InstClass> loadInstTable() {
+		ArrayList<InstClass> instArray = new ArrayList<>();
+		if (instResource == null) {
+			return instArray;
+		}
+		for (String key : instResource.keySet()) {
+			int program;
+			try {
+				program = Integer.parseInt(key);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			String name = instResource.getString(key);
+			if (name.equals("-")) {
+				name = key;
+			}
+			instArray.add(new InstClass(program+": "+name, 0, program, null));
+		}
+		instArray.sort(Comparator.comparingInt(InstClass::getProgram));
+		return instArray;
+	}
+
 	public static List<InstClass> defaultSoundBank() throws MidiUnavailableException {
 		Soundbank sb = MidiSystem.getSynthesizer().getDefaultSoundbank();
 		return loadSoundBank(sb, true);
 	}
 
 	public static List<InstClass> loadDLS(File dlsFile) throws InvalidMidiDataException, IOException {
+		return loadDLS(dlsFile, () -> MidiSystem.getSoundbank(dlsFile));
+	}
+
+	/**
+	 * 解析したDLSファイルから楽器リストを作成します. 楽器情報の出力と, 失敗時のDLSファイル設定の解除は呼び出し元のスレッドで行います.
+	 * @param dlsFile
+	 * @param soundbank  DLSファイルの解析結果 (別スレッドで解析した結果の取得)
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<InstClass> loadDLS(File dlsFile, Callable<Soundbank> soundbank) throws IOException {
 		try {
-			Soundbank sb = MidiSystem.getSoundbank(dlsFile);
+			Soundbank sb = soundbank.call();
 			return loadSoundBank(sb, true);
 		} catch (Exception e) {
 			MabiIccoProperties.getInstance().setDlsFile(null);
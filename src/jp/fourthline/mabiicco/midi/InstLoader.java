@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.midi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sound.midi.Instrument;
+import javax.sound.midi.Synthesizer;
+
+/**
+ * Synthesizerにロードする楽器を管理します.
+ * <pre>
+ * 1. 楽譜で使用している楽器のみをロードする.
+ * 2. プログラム変更時の楽器ロードはバックグラウンドで行う.
+ * </pre>
+ * サンプルデータはDLSファイル上の範囲を参照するため, ロードした楽器はアンロードしません.
+ * (アンロードしてもメモリは減らず, 全チャンネルの発音が止まるだけのため)
+ */
+public final class InstLoader {
+	private final Synthesizer synthesizer;
+
+	/** ロード済みの楽器 */
+	private final HashSet<InstClass> loadedSet = new HashSet<>();
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "InstLoader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public InstLoader(Synthesizer synthesizer) {
+		this.synthesizer = synthesizer;
+	}
+
+	/**
+	 * 指定された楽器のうち, ロードしていないものをロードします.
+	 * @param requiredInsts
+	 */
+	public synchronized void require(Collection<InstClass> requiredInsts) {
+		requiredInsts.forEach(this::load);
+	}
+
+	/**
+	 * バックグラウンドで楽器をロードします.
+	 * @param requiredInsts
+	 */
+	public void preload(Collection<InstClass> requiredInsts) {
+		List<InstClass> list = new ArrayList<>(requiredInsts);
+		executor.submit(() -> require(list));
+	}
+
+	private void load(InstClass inst) {
+		if (loadedSet.contains(inst)) {
+			return;
+		}
+		Instrument instrument = inst.getInstrument();
+		if (instrument == null) {
+			return;
+		}
+		synthesizer.loadInstrument(instrument);
+		loadedSet.add(inst);
+	}
+}
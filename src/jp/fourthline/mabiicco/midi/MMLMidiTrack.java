@@ -6,11 +6,11 @@ package jp.fourthline.mabiicco.midi;
 
 import static jp.fourthline.mabiicco.AppResource.appText;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import jp.fourthline.mabiicco.MabiIccoProperties;
 import jp.fourthline.mabiicco.ui.SettingButtonGroupItem;
+import jp.fourthline.mmlTools.MMLNoteColumns;
 import jp.fourthline.mmlTools.MMLNoteEvent;
 
 /**
@@ -20,17 +20,25 @@ import jp.fourthline.mmlTools.MMLNoteEvent;
  */
 public final class MMLMidiTrack {
 	private final InstClass inst;
-	private final ArrayList<MMLNoteEvent> noteEventList;
+	private final MMLNoteColumns noteColumns;
 	private int attackDelayCorrect = 0;
 	private final OverlapMode overlapMode = MabiIccoProperties.getInstance().overlapMode.get();
 
 	public MMLMidiTrack(InstClass inst) {
 		this.inst = inst;
-		noteEventList = new ArrayList<>();
+		noteColumns = new MMLNoteColumns();
 	}
 
 	public List<MMLNoteEvent> getNoteEventList() {
-		return noteEventList;
+		return noteColumns.toNoteEventList();
+	}
+
+	/**
+	 * 変換後のノートを配列形式で取得します.
+	 * @return
+	 */
+	public MMLNoteColumns getNoteColumns() {
+		return noteColumns;
 	}
 
 	public void setAttackDelayCorrect(int attackDelayCorrect) {
@@ -38,44 +46,40 @@ public final class MMLMidiTrack {
 	}
 
 	public void clear() {
-		noteEventList.clear();
+		noteColumns.clear();
 	}
 
 	public void add(List<MMLNoteEvent> list) {
 		for (MMLNoteEvent noteEvent : list) {
-			addItem(noteEvent.clone());
+			addItem(noteEvent);
 		}
 	}
 
-	private void addItem(MMLNoteEvent addEvent) {
-		int targetTick = addEvent.getTickOffset();
-		int targetIndex = 0;
+	private void addItem(MMLNoteEvent noteEvent) {
+		int targetTick = noteEvent.getTickOffset();
+		int tick = noteEvent.getTick();
 
 		// アタック遅延補正分
 		if (attackDelayCorrect != 0) {
 			targetTick += attackDelayCorrect;
 			if (targetTick < 0) {
-				int tick = addEvent.getTick() + targetTick;
+				tick += targetTick;
 				if (tick <= 0) return;
 				targetTick = 0;
-				addEvent.setTick(tick);
 			}
-			addEvent.setTickOffset(targetTick);
 		}
-
-		for (MMLNoteEvent noteEvent : noteEventList) {
-			if (noteEvent.getTickOffset() > targetTick) {
-				break;
-			}
-			targetIndex++;
-			if ( (noteEvent.getTickOffset() == targetTick) && (noteEvent.getNote() == addEvent.getNote())) {
+		// 同じ位置に同じ音があればその直後, なければ targetTickより後ろのノートの直前に追加する.
+		int targetIndex = noteColumns.upperBound(targetTick);
+		for (int i = noteColumns.lowerBound(targetTick); i < targetIndex; i++) {
+			if (noteColumns.getNote(i) == noteEvent.getNote()) {
+				targetIndex = i + 1;
 				break;
 			}
 		}
 
-		addEvent = overlapNote(targetIndex, addEvent);
-		if (addEvent != null) {
-			noteEventList.add(targetIndex, addEvent);
+		tick = overlapNote(targetIndex, noteEvent.getNote(), targetTick, tick);
+		if (tick != NO_ADD) {
+			noteColumns.insert(targetIndex, noteEvent, targetTick, tick);
 		}
 	}
 
@@ -112,23 +116,27 @@ public final class MMLMidiTrack {
 		public abstract boolean isOverlap(InstClass inst, int note);
 	}
 
-	private MMLNoteEvent overlapNote(int targetIndex, MMLNoteEvent addEvent) {
-		if (overlapMode.isOverlap(inst, addEvent.getNote())) {
-			return addEvent;
-		}
+	private static final int NO_ADD = Integer.MIN_VALUE;
 
-		int targetTick = addEvent.getTickOffset();
+	/**
+	 * 重複するノートを調整します.
+	 * @return 追加するノートのtick. 追加しない場合は NO_ADD.
+	 */
+	private int overlapNote(int targetIndex, int note, int targetTick, int tick) {
+		if (overlapMode.isOverlap(inst, note)) {
+			return tick;
+		}
 
 		// 前の音との重複修正
 		if ( targetIndex > 0 ) {
-			MMLNoteEvent prevEvent = noteEventList.get( targetIndex - 1 );
-			if (addEvent.getNote() == prevEvent.getNote()) {
-				if ( prevEvent.getTickOffset() == targetTick ) {
+			int prevIndex = targetIndex - 1;
+			if (note == noteColumns.getNote(prevIndex)) {
+				if ( noteColumns.getTickOffset(prevIndex) == targetTick ) {
 					/* 音量はテンポの有無でどちらかのノートの設定になるが対応しない */
-					if (prevEvent.getTick() >= addEvent.getTick()) {
-						noteEventList.get(targetIndex-1).setTick(addEvent.getTick());
+					if (noteColumns.getTick(prevIndex) >= tick) {
+						noteColumns.setTick(prevIndex, tick);
 					}
-					return null;
+					return NO_ADD;
 
 					// 2021/09/18 テンポを和音出力し、ゲーム内の鳴り方もかわったようなので以下コードは使用しない
 					// 開始位置が同じときには, 後発音で更新する.
@@ -153,23 +161,15 @@ public final class MMLMidiTrack {
 		}
 
 		// 後ろの音との重複修正
-		if ( targetIndex < noteEventList.size() ) {
-			MMLNoteEvent nextEvent = noteEventList.get( targetIndex );
-			trimOverlapNote(addEvent, nextEvent);
-		}
-
-		return addEvent;
-	}
-
-	private void trimOverlapNote(MMLNoteEvent note1, MMLNoteEvent note2) {
-		if (note1.getTickOffset() >= note2.getTickOffset()) {
-			new AssertionError();
-		}
-		if (note1.getNote() == note2.getNote()) {
-			int tickOverlap = note1.getEndTick() - note2.getTickOffset();
-			if (tickOverlap > 0) {
-				note1.setTick( note1.getTick() - tickOverlap );
+		if ( targetIndex < noteColumns.size() ) {
+			if (note == noteColumns.getNote(targetIndex)) {
+				int tickOverlap = targetTick + tick - noteColumns.getTickOffset(targetIndex);
+				if (tickOverlap > 0) {
+					tick -= tickOverlap;
+				}
 			}
 		}
+
+		return tick;
 	}
 }
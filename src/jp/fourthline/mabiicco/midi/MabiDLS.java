@@ -10,19 +10,22 @@ import java.nio.ByteBuffer;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sound.midi.*;
 import javax.sound.sampled.LineUnavailableException;
 
 import com.sun.media.sound.SoftSynthesizer;
 
-import jp.fourthline.mabiicco.AppErrorHandler;
 import jp.fourthline.mmlTools.MMLEventList;
+import jp.fourthline.mmlTools.MMLNoteColumns;
 import jp.fourthline.mmlTools.MMLNoteEvent;
 import jp.fourthline.mmlTools.MMLScore;
 import jp.fourthline.mmlTools.MMLTempoEvent;
@@ -56,9 +59,10 @@ public final class MabiDLS {
 	};
 
 	private final ArrayList<Runnable> notifier = new ArrayList<>();
+	private final ArrayList<Runnable> startNotifier = new ArrayList<>();
 	private final boolean[] muteState = new boolean[ MMLScore.MAX_TRACK ];
 	private WavoutDataLine wavout;
-	private boolean allLoaded = false;
+	private InstLoader instLoader;
 
 	public static MabiDLS getInstance() {
 		if (instance == null) {
@@ -80,6 +84,7 @@ public final class MabiDLS {
 		info.put("load default soundbank", "false");
 		info.put("max polyphony", "96");
 		((SoftSynthesizer)this.synthesizer).open(wavout = new WavoutDataLine(), info);
+		instLoader = new InstLoader(this.synthesizer);
 		addTrackEndNotifier(() -> wavout.stopRec());
 
 		long latency = this.synthesizer.getLatency();
@@ -184,12 +189,21 @@ public final class MabiDLS {
 		sequencer.setTickPosition(startTick);
 		sequencer.setTempoInBPM(startTempo);
 		sequencer.start();
+		startNotifier.forEach(t -> t.run());
 	}
 
 	public void addTrackEndNotifier(Runnable n) {
 		notifier.add(n);
 	}
 
+	/**
+	 * 再生開始 (ループ再生の再開を含む) 時の通知を登録します. 再生を開始したスレッドで呼ばれます.
+	 * @param n
+	 */
+	public void addSequenceStartNotifier(Runnable n) {
+		startNotifier.add(n);
+	}
+
 	public void loadingDefaultSound() {
 		try {
 			List<InstClass> loadList = InstClass.defaultSoundBank();
@@ -202,39 +216,100 @@ public final class MabiDLS {
 			e.printStackTrace();
 		}
 
-		for (var inst : insts) {
-			this.synthesizer.loadInstrument(inst.getInstrument());
-		}
-		allLoaded = true;
+		instLoader.require(insts);
 	}
 
-	public void loadingDLSFile(File file) throws InvalidMidiDataException, IOException {
-		System.out.println("["+file.getName()+"]");
-		if (file.getName().equals("")) {
-			return;
+	/**
+	 * 楽器定義のテーブルから楽器情報のみを登録します.
+	 * シンセサイザを初期化せずに, MIDIシーケンスの作成 (createSequenceForMidi) やパート構成の参照に使用します.
+	 * 音源の減衰量は参照できないため, Velocityは変換しません.
+	 */
+	public void loadingInstTable() {
+		for (InstClass inst : InstClass.loadInstTable()) {
+			if (!insts.contains(inst)) {
+				insts.add(inst);
+			}
 		}
+	}
+
+	/**
+	 * 実在するDLSファイルのパスを探します.
+	 * @param file
+	 * @return 見つからない場合は指定されたファイル
+	 */
+	private File findDLSFile(File file) {
 		if (!file.exists()) {
 			// 各Rootディレクトリを探索します.
 			for (Path path : FileSystems.getDefault().getRootDirectories()) {
 				File aFile = new File(path.toString() + file.getPath());
 				if (aFile.exists()) {
-					file = aFile;
-					break;
+					return aFile;
 				}
 			}
 		}
+		return file;
+	}
+
+	private void addDLSInsts(File file, List<InstClass> loadList) {
+		ArrayList<InstClass> addList = new ArrayList<>();
+		for (InstClass inst : loadList) {
+			if (!insts.contains(inst)) {
+				insts.add(inst);
+				addList.add(inst);
+			}
+		}
+		instsMap.put(file, addList);
+	}
+
+	public void loadingDLSFile(File file) throws InvalidMidiDataException, IOException {
+		System.out.println("["+file.getName()+"]");
+		if (file.getName().equals("")) {
+			return;
+		}
+		file = findDLSFile(file);
 		if (file.exists()) {
-			ArrayList<InstClass> addList = new ArrayList<>();
 			if (!instsMap.containsKey(file)) {
-				List<InstClass> loadList = InstClass.loadDLS(file);
-				for (InstClass inst : loadList) {
-					if (!insts.contains(inst)) {
-						insts.add(inst);
-						addList.add(inst);
-					}
+				addDLSInsts(file, InstClass.loadDLS(file));
+			}
+		}
+	}
+
+	/**
+	 * 複数のDLSファイルを並列に解析します. 楽器の登録順はファイルの指定順で, 登録は呼び出し元のスレッドで行います.
+	 * @param files
+	 * @param progress  1ファイルの登録ごとに呼び出す.
+	 * @throws IOException
+	 */
+	public void loadingDLSFiles(List<File> files, Runnable progress) throws IOException {
+		if (files.isEmpty()) {
+			return;
+		}
+		int nThreads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		try {
+			ArrayList<File> fileList = new ArrayList<>();
+			ArrayList<Future<Soundbank>> futureList = new ArrayList<>();
+			for (File file : files) {
+				System.out.println("["+file.getName()+"]");
+				File aFile = findDLSFile(file);
+				if ( file.getName().equals("") || !aFile.exists() || instsMap.containsKey(aFile) || fileList.contains(aFile) ) {
+					fileList.add(null);
+					futureList.add(null);
+				} else {
+					fileList.add(aFile);
+					futureList.add(executor.submit(() -> MidiSystem.getSoundbank(aFile)));
 				}
-				instsMap.put(file, addList);
 			}
+
+			for (int i = 0; i < fileList.size(); i++) {
+				Future<Soundbank> future = futureList.get(i);
+				if (future != null) {
+					addDLSInsts(fileList.get(i), InstClass.loadDLS(fileList.get(i), future::get));
+				}
+				progress.run();
+			}
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
@@ -242,37 +317,41 @@ public final class MabiDLS {
 		return this.instsMap;
 	}
 
-	public synchronized void loadRequiredInstruments(MMLScore score) {
-		if (allLoaded) {
-			return;
-		}
-
-		ArrayList<InstClass> requiredInsts = new ArrayList<>();
+	/**
+	 * 楽譜で使用している楽器の一覧を取得します.
+	 * @param score
+	 * @return
+	 */
+	private List<InstClass> requiredInsts(MMLScore score) {
+		LinkedHashSet<InstClass> requiredInsts = new LinkedHashSet<>();
 		ArrayList<MMLTrack> trackList = new ArrayList<>(score.getTrackList());
 		for (MMLTrack track : trackList) {
 			InstClass inst1 = getInstByProgram( track.getProgram() );
 			InstClass inst2 = getInstByProgram( track.getSongProgram() );
-			if ( (inst1 != null) && (!requiredInsts.contains(inst1)) ) {
+			if (inst1 != null) {
 				requiredInsts.add(inst1);
 			}
-			if ( (inst2 != null) && (!requiredInsts.contains(inst2)) ) {
+			if (inst2 != null) {
 				requiredInsts.add(inst2);
 			}
 		}
+		return new ArrayList<>(requiredInsts);
+	}
 
-		// load required Instruments
-		List<Instrument> loadedList = Arrays.asList(synthesizer.getLoadedInstruments());
-		for (InstClass inst : requiredInsts) {
-			try {
-				Instrument instrument = inst.getInstrument();
-				if (!loadedList.contains(instrument)) {
-					synthesizer.loadInstrument(instrument);
-				}
-			} catch (OutOfMemoryError e) {
-				AppErrorHandler.getInstance().exec();
-				System.exit(1);
-			}
-		}
+	/**
+	 * 楽譜で使用している楽器のうち, ロードしていないものをロードします.
+	 * @param score
+	 */
+	public void loadRequiredInstruments(MMLScore score) {
+		instLoader.require(requiredInsts(score));
+	}
+
+	/**
+	 * 楽譜で使用している楽器をバックグラウンドでロードします. (プログラム変更時)
+	 * @param score
+	 */
+	public void preloadRequiredInstruments(MMLScore score) {
+		instLoader.preload(requiredInsts(score));
 	}
 
 	public Sequencer getSequencer() {
@@ -568,7 +647,7 @@ public final class MabiDLS {
 				convertMidiTrack(sequence.createTrack(), mmlTrack, trackCount+MMLScore.MAX_TRACK, mmlTrack.getSongProgram(), startOffset, attackDelayCorrect, withMeta, withMute);
 			}
 			trackCount++;
-			if (trackCount >= this.channel.length) {
+			if ( (this.channel != null) && (trackCount >= this.channel.length) ) {
 				break;
 			}
 		}
@@ -614,7 +693,7 @@ public final class MabiDLS {
 						MMLMidiTrack midiTrack = new MMLMidiTrack(instClass);
 						midiTrack.setAttackDelayCorrect(mmlTrack.getAttackDelayCorrect(i));
 						midiTrack.add(eventList);
-						convertMidiPart(sequence.createTrack(), midiTrack.getNoteEventList(), channel, instClass, 1, true);
+						convertMidiPart(sequence.createTrack(), midiTrack.getNoteColumns(), channel, instClass, 1, true);
 					}
 				}
 			}
@@ -650,10 +729,10 @@ public final class MabiDLS {
 				midiTrack.add(eventList.getMMLNoteEventList());
 			}
 		}
-		convertMidiPart(track, midiTrack.getNoteEventList(), channel, instClass, startOffset, withMute);
+		convertMidiPart(track, midiTrack.getNoteColumns(), channel, instClass, startOffset, withMute);
 	}
 
-	private void convertMidiPart(Track track, List<MMLNoteEvent> eventList, int channel, InstClass inst, int startOffset, boolean withMute) throws InvalidMidiDataException {
+	private void convertMidiPart(Track track, MMLNoteColumns noteColumns, int channel, InstClass inst, int startOffset, boolean withMute) throws InvalidMidiDataException {
 		int velocity = MMLNoteEvent.INIT_VOL;
 		int targetProgram = inst.getProgram();
 
@@ -665,7 +744,8 @@ public final class MabiDLS {
 		track.add(new MidiEvent(pcMessage, 0));
 
 		// Noteイベントの変換
-		for ( MMLNoteEvent noteEvent : eventList ) {
+		var noteEvent = noteColumns.cursor();
+		while (noteEvent.next()) {
 			if (withMute && noteEvent.isMute()) {
 				continue;
 			}
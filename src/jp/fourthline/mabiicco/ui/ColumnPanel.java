@@ -11,6 +11,7 @@ import java.awt.Dimension;
 import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
@@ -184,35 +185,19 @@ public final class ColumnPanel extends JPanel implements MouseListener, MouseMot
 	 */
 	private void paintRuler(Graphics2D g) {
 		MMLScore score = mmlManager.getMMLScore();
-		var timeSignatureIterator = score.getTimeSignatureList().iterator();
-		int measureTick = score.getTimeCountOnly() * score.getBeatTick();
-		int m = 0;
-		int md = 0;
 		int y2 = getHeight();
-		long length = pianoRollView.convertXtoTick( getWidth() );
+		Rectangle clip = g.getClipBounds();
+		// 描画範囲の手前から始まる小節番号の文字列も含める.
+		int startTick = (clip != null) ? (int) pianoRollView.convertXtoTick(Math.max(clip.x - 40, 0)) : 0;
+		long length = pianoRollView.convertXtoTick( (clip != null) ? clip.x + clip.width : getWidth() );
 		g.setColor(BEAT_BORDER_COLOR.get());
 
-		int nextMeasureOffset = 0;
-		TimeSignature timeSignature = timeSignatureIterator.hasNext() ? timeSignatureIterator.next() : null;
-		if (timeSignature != null) {
-			nextMeasureOffset = timeSignature.getMeasureOffset();
-		}
-		while (md < length) {
-			int x = pianoRollView.convertTicktoX(md);
+		score.getMeasureGrid().forEachMeasure(startTick, (int) length, (tick, m) -> {
+			int x = pianoRollView.convertTicktoX(tick);
 			int y1 = 0;
 			g.drawLine(x, y1, x, y2);
 			g.drawString(Integer.toString(m), x+2, y1+10);
-
-			if ( (timeSignature != null) && (m >= nextMeasureOffset) ) {
-				measureTick = timeSignature.getNumTime() * timeSignature.getBaseTick();
-				timeSignature = timeSignatureIterator.hasNext() ? timeSignatureIterator.next() : null;
-				if (timeSignature != null) {
-					nextMeasureOffset = timeSignature.getMeasureOffset();
-				}
-			}
-			m++;
-			md += measureTick;
-		}
+		});
 	}
 
 	/**
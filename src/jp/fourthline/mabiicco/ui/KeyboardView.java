@@ -12,6 +12,7 @@ import java.awt.Graphics2D;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.util.BitSet;
 
 import javax.swing.JPanel;
 
@@ -27,6 +28,7 @@ public final class KeyboardView extends JPanel implements IPlayNote {
 	private static final long serialVersionUID = -3850112420986284800L;
 
 	private int[] playNote = null;
+	private BitSet sequenceNote = new BitSet();
 	private int playTrackIndex = 0;
 	private int playPartIndex = 0;
 	private final int width = 60;
@@ -127,22 +129,42 @@ public final class KeyboardView extends JPanel implements IPlayNote {
 		}
 	}
 
+	private static final int[] yAdd = { -2, -2, -1, -2, 1, -3, -2, -2, -1, 0, 0, 2 }; // 補正値
+
 	private void paintPlayNote(Graphics2D g) {
-		int[] yAdd = { -2, -2, -1, -2, 1, -3, -2, -2, -1, 0, 0, 2 }; // 補正値
+		g.setColor(Color.RED);
+		sequenceNote.stream().forEach(note -> paintNoteMark(g, note));
 		if (playNote == null) {
 			return;
 		}
 
 		for (int note : playNote) {
-			int x = 15;
-			if (isWhiteKey(note)) {
-				x += 20;
-			}
+			paintNoteMark(g, note);
+		}
+	}
+
+	private void paintNoteMark(Graphics2D g, int note) {
+		int x = 15;
+		if (isWhiteKey(note)) {
+			x += 20;
+		}
 
-			int y = pianoRollView.convertNote2Y(note) + yAdd[(note + 12) % 12];
-			g.setColor(Color.RED);
-			g.fillOval(x, y, 4, 4);
+		int y = pianoRollView.convertNote2Y(note) + yAdd[(note + 12) % 12];
+		g.fillOval(x, y, 4, 4);
+	}
+
+	/**
+	 * 再生中に発音しているノートを設定し, 変化した鍵盤の部分のみ再描画します.
+	 * @param note 発音中のノート. null の場合は消去します.
+	 */
+	public void setSequenceNote(BitSet note) {
+		if (note == null) {
+			note = new BitSet();
 		}
+		BitSet changed = (BitSet) sequenceNote.clone();
+		changed.xor(note);
+		sequenceNote = note;
+		changed.stream().forEach(t -> repaint(15, pianoRollView.convertNote2Y(t) - 3, 25, 10));
 	}
 
 	private void paintOctPianoLine(Graphics2D g, int pos, char posText) {
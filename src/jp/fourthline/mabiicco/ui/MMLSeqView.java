@@ -28,6 +28,7 @@ import jp.fourthline.mabiicco.ui.editor.KeyboardEditor;
 import jp.fourthline.mabiicco.ui.editor.MMLEditor;
 import jp.fourthline.mabiicco.ui.editor.MMLScoreUndoEdit;
 import jp.fourthline.mabiicco.ui.editor.MMLTextEditor;
+import jp.fourthline.mabiicco.ui.editor.RecoveryJournal;
 import jp.fourthline.mabiicco.ui.mml.MMLInputPanel;
 import jp.fourthline.mabiicco.ui.mml.MMLOutputPanel;
 import jp.fourthline.mabiicco.ui.mml.MMLPartChangePanel;
@@ -49,9 +50,8 @@ import java.awt.Frame;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.BitSet;
 import java.util.LinkedList;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.function.IntConsumer;
 
 /**
@@ -85,10 +85,11 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 	private final KeyboardEditor keyboardEditor;
 
 	private final JPanel panel;
-	private final ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(4);
 
 	private final Frame parentFrame;
 
+	private SequenceFrameScheduler frameScheduler;
+
 	/**
 	 * Create the panel.
 	 * @param parentFrame 関連付けるFrame
@@ -137,8 +138,8 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		keyboardEditor.setNoteAlignChanger(noteAlignChanger);
 	}
 
-	public boolean recovery(String s) {
-		boolean result = undoEdit.recover(s);
+	public boolean recovery(RecoveryJournal journal) {
+		boolean result = undoEdit.recover(journal);
 		System.out.println("recover: "+result);
 		if (result) {
 			mmlScore = mmlScore.toGeneratedScore(false);
@@ -150,8 +151,12 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		return result;
 	}
 
-	public String getRecoveryData() {
-		return undoEdit.getBackupString();
+	/**
+	 * 編集状態の復旧用ジャーナルへの記録を開始します.
+	 * @param journal
+	 */
+	public void setRecoveryJournal(RecoveryJournal journal) {
+		undoEdit.setJournal(journal);
 	}
 
 	private boolean currentEditMode = true;
@@ -303,10 +308,12 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 	 * 再生スタート（現在のシーケンス位置を使用）
 	 */
 	public void startSequence() {
+		// 再生用シーケンスの作成中に編集されても影響がないように, 作成前にスナップショットをとる.
+		MMLScore score = mmlScore.snapshot();
 		new Thread(() -> {
 			NanoTime time = NanoTime.start();
 			long startTick = pianoRollView.getSequencePosition();
-			MabiDLS.getInstance().createSequenceAndStart(mmlScore, startTick);
+			MabiDLS.getInstance().createSequenceAndStart(score, startTick);
 			ActionDispatcher.getInstance().showTime("play", time);
 		}).start();
 	}
@@ -340,6 +347,27 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		updateProgramSelect();
 	}
 
+	/**
+	 * スコアの各トラックをバックグラウンドで generate し, 完了したトラックから出力用MMLとランク表示を更新します.
+	 * 選択中のトラックを先に処理します. スコアのスナップショットを処理するため, 処理中の編集とは競合しません.
+	 */
+	public void generateInBackground() {
+		MMLScore score = mmlScore;
+		MMLScore copy = score.snapshot();
+		int activeIndex = getActiveTrackIndex();
+		new Thread(() -> {
+			NanoTime time = NanoTime.start();
+			copy.generateEachTrack(activeIndex, (index, track) -> EventQueue.invokeLater(() -> {
+				// スコアが差し替えられた場合や, トラックが変更された場合は反映しない.
+				if ( (mmlScore == score) && (index < score.getTrackCount()) && (index < tabbedPane.getTabCount())
+						&& score.getTrack(index).applyGenerated(track) ) {
+					((MMLTrackView) tabbedPane.getComponentAt(index)).updateTrack();
+				}
+			}));
+			ActionDispatcher.getInstance().showTime("generate", time);
+		}, "GenerateScore").start();
+	}
+
 	/**
 	 * 現在のトラックにMMLを設定する。
 	 */
@@ -455,6 +483,7 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		getSelectedTrack().setMabiMML(text);
 		resetTrackView();
 		undoEdit.saveState();
+		pianoRollView.invalidateBackground();
 		panel.repaint();
 	}
 
@@ -466,6 +495,7 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 	private void updateSelectedTrackAndMMLPart() {
 		MMLTrackView view = (MMLTrackView) tabbedPane.getSelectedComponent();
 		if (view != null) {
+			view.updateTextIfChanged();
 			view.updateMuteButton();
 			int program = getActivePartProgram();
 
@@ -632,7 +662,7 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 			resetTrackView();
 			updateProgramSelect();
 		}
-		// すべての全パートMMLテキストを更新します. 
+		// すべてのトラックの楽器設定を更新します. MMLテキストは選択中のトラックのみ更新し, 他は選択時に更新します.
 		int count = tabbedPane.getTabCount();
 		for (int i = 0; i < count; i++) {
 			MMLTrackView view = (MMLTrackView) tabbedPane.getComponentAt(i);
@@ -641,6 +671,7 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 
 		MabiDLS.getInstance().updateMidiControl(mmlScore);
 		undoEdit.saveState();
+		pianoRollView.invalidateBackground();
 		panel.repaint();
 	}
 
@@ -731,15 +762,65 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		updateActivePart(true);
 	}
 
-	// PianoRoll, Sequence系の描画を行うスレッドを開始します.
+	// PianoRoll, Sequence系の描画を行うスケジューラを登録します.
 	private void startSequenceThread() {
-		scheduledExecutor.scheduleWithFixedDelay(() -> {
-			if (MabiDLS.getInstance().getSequencer().isRunning()) {
-				EventQueue.invokeLater(() -> {
-					updatePianoRollView();
-				});
+		MabiDLS dls = MabiDLS.getInstance();
+		frameScheduler = new SequenceFrameScheduler(dls.getSequencer(), this::updateSequenceView, this::sequenceStopped);
+		dls.addSequenceStartNotifier(frameScheduler::start);
+	}
+
+	/**
+	 * 再生停止後の表示更新. 再生中の表示更新にかかった時間を表示します.
+	 */
+	private void sequenceStopped() {
+		keyboardView.setSequenceNote(null);
+		ActionDispatcher.getInstance().showFrameTime(frameScheduler.getFrameCount(), frameScheduler.getAverageFrameTimeUs(), frameScheduler.getMaxFrameTimeUs());
+	}
+
+	/**
+	 * 再生中の表示更新. スクロールしなければ, 再生位置の線と発音中の鍵盤が変わった部分のみ再描画します.
+	 */
+	private void updateSequenceView(long tick) {
+		int prevPositionX = pianoRollView.convertTicktoX(pianoRollView.getSequencePlayPosition());
+		pianoRollView.setRunningSequencePosition(tick);
+		JViewport viewport = scrollPane.getViewport();
+		int note = pianoRollView.convertY2Note(viewport.getViewPosition().y)-1;
+		boolean scrolled = scrollToSequencePosition(note);
+		keyboardView.setSequenceNote(sequenceNote(tick));
+		if (scrolled) {
+			scrollPane.repaint();
+		} else {
+			int curPositionX = pianoRollView.convertTicktoX(tick);
+			if (prevPositionX != curPositionX) {
+				repaintSequenceLine(prevPositionX);
+				repaintSequenceLine(curPositionX);
+			}
+		}
+	}
+
+	private void repaintSequenceLine(int x) {
+		pianoRollView.repaint(x-1, 0, 3, pianoRollView.getHeight());
+		columnView.repaint(x-1, 0, 3, columnView.getHeight());
+	}
+
+	/**
+	 * 指定したtickで発音中のノート (ミュートしているトラックを除く).
+	 */
+	private BitSet sequenceNote(long tick) {
+		BitSet notes = new BitSet();
+		MabiDLS dls = MabiDLS.getInstance();
+		int trackIndex = 0;
+		for (MMLNoteEvent[] noteList : mmlScore.getNoteListOnTickOffset(tick)) {
+			if (!dls.getMute(trackIndex)) {
+				for (MMLNoteEvent noteEvent : noteList) {
+					if ( (noteEvent != null) && (noteEvent.getNote() >= 0) ) {
+						notes.set(noteEvent.getNote());
+					}
+				}
 			}
-		}, 500, 25, TimeUnit.MILLISECONDS);
+			trackIndex++;
+		}
+		return notes;
 	}
 
 	@Override
@@ -753,16 +834,26 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 	@Override
 	public void updatePianoRollView(int note) {
 		pianoRollView.updateRunningSequencePosition();
+		scrollToSequencePosition(note);
+		scrollPane.repaint();
+	}
+
+	/**
+	 * 再生位置と指定したノートが表示されるようにスクロールします.
+	 * @return 表示位置が変わった場合は true
+	 */
+	private boolean scrollToSequencePosition(int note) {
 		int curPositionTick = (int) pianoRollView.getSequencePlayPosition();
 		int curPositionX = pianoRollView.convertTicktoX(curPositionTick);
-		var measure = new Measure(mmlScore, curPositionTick);
+		var grid = mmlScore.getMeasureGrid();
+		var measure = new Measure(grid, curPositionTick);
 		int measuredPositionX = pianoRollView.convertTicktoX(measure.measuredTick());
 		JViewport viewport = scrollPane.getViewport();
 		Point point = viewport.getViewPosition();
 		Dimension dim = viewport.getExtentSize();
 		int x1 = point.x;
 		int positionX = point.x;
-		int x2 = pianoRollView.convertTicktoX(Measure.measuredTick(mmlScore, (int)pianoRollView.convertXtoTick(x1 + dim.width) - measure.getMeasureTick()));
+		int x2 = pianoRollView.convertTicktoX(grid.measuredTick((int)pianoRollView.convertXtoTick(x1 + dim.width) - measure.getMeasureTick()));
 		if ( (x1 > curPositionX) || (x1 + dim.width < curPositionX) ) {
 			positionX = curPositionX;
 		} else if (measuredPositionX > x2) {
@@ -783,9 +874,10 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 		} else {
 			positionY = point.y;
 		}
+		Point prevPoint = new Point(point);
 		point.setLocation(positionX, positionY);
 		viewport.setViewPosition(point);
-		scrollPane.repaint();
+		return !prevPoint.equals(viewport.getViewPosition());
 	}
 
 	@Override
@@ -805,7 +897,7 @@ public final class MMLSeqView extends AbstractMMLManager implements ChangeListen
 	}
 
 	private void updateProgramSelect() {
-		scheduledExecutor.submit(() -> MabiDLS.getInstance().loadRequiredInstruments(mmlScore));
+		MabiDLS.getInstance().preloadRequiredInstruments(mmlScore);
 	}
 
 	public void showKeyboardInput() {
@@ -7,11 +7,13 @@ package jp.fourthline.mabiicco.ui;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
 import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
 import javax.swing.JLabel;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 
 import java.awt.BorderLayout;
+import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridBagLayout;
@@ -65,6 +67,10 @@ public final class MMLTrackView extends JPanel implements ActionListener {
 	private int trackIndex;
 	private boolean disableAction = false;
 
+	// 表示中のMMLテキストの生成バージョン (MMLTrack.getMabiMMLVersion)
+	private long textVersion;
+	private boolean textValid = false;
+
 	private final JPanel mmlTextPanel = new JPanel();
 
 	public void setVisibleMMLTextPanel(boolean b) {
@@ -274,8 +280,37 @@ public final class MMLTrackView extends JPanel implements ActionListener {
 		partButton[index].setSelected(true);
 	}
 
+	/**
+	 * トラックの楽器設定を反映します. MMLテキストとランク表示は, 選択中のタブのときのみ更新します.
+	 * 選択されていないタブは, 選択されたときに {@link #updateTextIfChanged()} で更新します.
+	 */
 	public void updateTrack() {
 		MMLTrack mmlTrack = mmlManager.getMMLScore().getTrack(trackIndex);
+		setInstProgram(mmlTrack);
+		String str = "   "+(trackIndex+1)+"/"+mmlManager.getMMLScore().getTrackCount();
+		trackIndexLabel.setText(str);
+		if (isSelectedTab()) {
+			updateText(mmlTrack);
+		}
+	}
+
+	/**
+	 * 表示しているMMLテキストとランク表示が, トラックの生成結果と異なる場合に更新します.
+	 */
+	public void updateTextIfChanged() {
+		updateText(mmlManager.getMMLScore().getTrack(trackIndex));
+	}
+
+	private boolean isSelectedTab() {
+		Container parent = getParent();
+		return !(parent instanceof JTabbedPane) || (((JTabbedPane) parent).getSelectedComponent() == this);
+	}
+
+	private void updateText(MMLTrack mmlTrack) {
+		long version = mmlTrack.getMabiMMLVersion();
+		if ( textValid && (version == textVersion) ) {
+			return;
+		}
 		String[] mml = mmlTrack.getMabiMMLArray();
 		for (int i = 0, len = mmlText.length; i < len; i++) {
 			if (i < mml.length) {
@@ -284,15 +319,9 @@ public final class MMLTrackView extends JPanel implements ActionListener {
 				mmlText[i].setText("");
 			}
 		}
-
-		setInstProgram(mmlTrack);
-		updateRankFormat(mmlTrack);
-	}
-
-	private void updateRankFormat(MMLTrack mmlTrack) {
 		trackComposeLabel.setText(mmlTrack.mmlRankFormat());
-		String str = "   "+(trackIndex+1)+"/"+mmlManager.getMMLScore().getTrackCount();
-		trackIndexLabel.setText(str);
+		textVersion = version;
+		textValid = true;
 	}
 
 	private InstClass convertInstBySongProgram(InstClass inst, int songProgram) {
@@ -353,7 +382,9 @@ public final class MMLTrackView extends JPanel implements ActionListener {
 		}
 
 		mmlManager.updateActiveTrackProgram(trackIndex, program, songProgram);
-		updateRankFormat(track);
+		if (isSelectedTab()) {
+			updateText(track);
+		}
 	}
 
 	private void updatePartButtonStatus() {
@@ -72,6 +72,8 @@ public final class MainFrame extends JFrame implements ComponentListener, Action
 
 	private final JPanel contentPane;
 	private final JTextField statusField;
+	private final JButton statusCancelButton;
+	private Runnable statusCancelAction = null;
 	private final MMLSeqView mmlSeqView;
 	private final JComboBox<NoteAlign> noteTypeSelect = new JComboBox<>(NoteAlign.values());
 	private final JComboBox<PaintMode> paintModeSelect = new JComboBox<>(PaintMode.values());
@@ -144,11 +146,22 @@ public final class MainFrame extends JFrame implements ComponentListener, Action
 		contentPane.add(southPanel, BorderLayout.SOUTH);
 		southPanel.setLayout(new BorderLayout(0, 0));
 
+		JPanel statusPanel = new JPanel(new BorderLayout(0, 0));
+		southPanel.add(statusPanel, BorderLayout.SOUTH);
 		statusField = new JTextField();
 		statusField.setEditable(false);
 		statusField.setFocusable(false);
-		southPanel.add(statusField, BorderLayout.SOUTH);
+		statusPanel.add(statusField, BorderLayout.CENTER);
 		statusField.setColumns(10);
+		statusCancelButton = new JButton(AppResource.appText("loading.cancel"));
+		statusCancelButton.setFocusable(false);
+		statusCancelButton.setVisible(false);
+		statusCancelButton.addActionListener(t -> {
+			if (statusCancelAction != null) {
+				statusCancelAction.run();
+			}
+		});
+		statusPanel.add(statusCancelButton, BorderLayout.EAST);
 
 		setCanReloadFile(false);
 		setCanUndo(false);
@@ -751,6 +764,27 @@ public final class MainFrame extends JFrame implements ComponentListener, Action
 		statusField.setText(text);
 	}
 
+	/**
+	 * 指定した文字列を表示中であれば消去します. 後から別の表示に変わっていれば何もしません.
+	 * @param text
+	 */
+	public void clearStatusText(String text) {
+		if (statusField.getText().equals(text)) {
+			setStatusProgress("", null);
+		}
+	}
+
+	/**
+	 * 処理中の状態を表示します.
+	 * @param text    表示する文字列
+	 * @param cancel  中止ボタンの処理. null の場合は中止ボタンを表示しない
+	 */
+	public void setStatusProgress(String text, Runnable cancel) {
+		statusField.setText(text);
+		statusCancelAction = cancel;
+		statusCancelButton.setVisible(cancel != null);
+	}
+
 	/**
 	 * 編集中ノート変更
 	 * @param index
@@ -12,6 +12,10 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Stroke;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import javax.swing.JPanel;
@@ -29,8 +33,8 @@ import jp.fourthline.mmlTools.MMLEventList;
 import jp.fourthline.mmlTools.MMLNoteEvent;
 import jp.fourthline.mmlTools.MMLScore;
 import jp.fourthline.mmlTools.MMLTrack;
-import jp.fourthline.mmlTools.Measure;
-import jp.fourthline.mmlTools.TimeSignature;
+import jp.fourthline.mmlTools.MeasureGrid;
+import jp.fourthline.mmlTools.core.ContentHash;
 import jp.fourthline.mmlTools.core.MMLTicks;
 import jp.fourthline.mmlTools.core.MMLException;
 
@@ -119,8 +123,20 @@ public final class PianoRollView extends JPanel {
 
 	private static final int DRAW_START_MARGIN = 192;
 
+	// 表示する小節数による幅 (拍子, 小節数, 拡大率が変わったときに再計算する)
+	private MeasureGrid userWidthGrid = null;
+	private int userWidthMeasure;
+	private double userWidthScale;
+	private int userWidth;
+
 	private final MabiIccoProperties properties = MabiIccoProperties.getInstance();
 
+	// 背景 (グリッド, 小節線, 他トラック) の描画キャッシュ. 表示状態のキーが変わったときに全て破棄する.
+	private static final int TILE_SIZE = 256;
+	private static final int MIN_TILE_CACHE = 64;
+	private final transient LinkedHashMap<Long, BufferedImage> tileCache = new LinkedHashMap<>(16, 0.75f, true);
+	private long tileCacheKey;
+
 	public enum PaintMode {
 		ALL_TRACK("paintMode.all_track"), 
 		ACTIVE_TRACK("paintMode.active_track"),
@@ -183,11 +199,11 @@ public final class PianoRollView extends JPanel {
 
 	/**
 	 * 現在のトラックの内容に合わせた幅に設定します.
+	 * 幅と高さが変わったときだけ再レイアウトします.
 	 */
 	private void updateViewWidthTrackLength() {
 		MMLScore mmlScore = mmlManager.getMMLScore();
 		long tickLength = mmlScore.getTotalTickLengthWithAll();
-		long userTickLength = TimeSignature.measureToTick(mmlScore, mmlScore.getUserViewMeasure());
 		try {
 			// 最後に12小節分のマージンを作成します.
 			int t1 = MMLTicks.getTick("1");
@@ -198,7 +214,15 @@ public final class PianoRollView extends JPanel {
 			e.printStackTrace();
 		}
 		int width = convertTicktoX(tickLength);
-		int userWidth = convertTicktoX(userTickLength);
+
+		int userViewMeasure = mmlScore.getUserViewMeasure();
+		var grid = mmlScore.getMeasureGrid();
+		if ( (grid != userWidthGrid) || (userViewMeasure != userWidthMeasure) || (wideScale != userWidthScale) ) {
+			userWidthGrid = grid;
+			userWidthMeasure = userViewMeasure;
+			userWidthScale = wideScale;
+			userWidth = convertTicktoX(grid.measureToTick(userViewMeasure));
+		}
 		if (width < userWidth) {
 			width = userWidth;
 		}
@@ -207,8 +231,8 @@ public final class PianoRollView extends JPanel {
 		var height = getTotalHeight();
 		if ((dim.width != width) || (dim.height != height)) {
 			super.setPreferredSize(new Dimension(width, height));
+			revalidate();
 		}
-		revalidate();
 	}
 
 	/**
@@ -308,6 +332,14 @@ public final class PianoRollView extends JPanel {
 		runningSequencePosition = MabiDLS.getInstance().getSequencer().getTickPosition();
 	}
 
+	/**
+	 * 再生中の表示位置を設定します. (シーケンサの位置から補間した位置)
+	 * @param tick
+	 */
+	public void setRunningSequencePosition(long tick) {
+		runningSequencePosition = tick;
+	}
+
 	public long getSequencePlayPosition() {
 		long position = sequencePosition;
 		if (MabiDLS.getInstance().getSequencer().isRunning()) {
@@ -354,14 +386,7 @@ public final class PianoRollView extends JPanel {
 		int startOffsetX = convertTicktoX(mmlManager.getActiveMMLPartStartOffset());
 
 		Graphics2D g2 = (Graphics2D)g.create();
-		for (int i = 0; i <= OCTNUM; i++) {
-			paintOctPianoLine(g2, i, startOffsetX);
-		}
-
-		paintMeasure(g2);
-		paintPitchRangeBorder(g2);
-
-		paintOtherTrack(g2);
+		paintBackgroundTiles(g2, startOffsetX);
 		paintActiveTrack(g2);
 		paintSelectedNote(g2);
 		paintNoteInfo(g2);
@@ -377,6 +402,133 @@ public final class PianoRollView extends JPanel {
 		g2.dispose();
 	}
 
+	/**
+	 * アクティブトラック以外の描画内容 (グリッド, 小節線, 音域, 他トラック).
+	 */
+	private void paintBackground(Graphics2D g, int startOffsetX) {
+		for (int i = 0; i <= OCTNUM; i++) {
+			paintOctPianoLine(g, i, startOffsetX);
+		}
+
+		paintMeasure(g);
+		paintPitchRangeBorder(g);
+
+		paintOtherTrack(g);
+	}
+
+	/**
+	 * 背景の描画キャッシュを破棄します. 描画キーに含まれない変更 (ノートの編集, 一時ミュートなど) のときに使用します.
+	 */
+	public void invalidateBackground() {
+		tileCache.clear();
+	}
+
+	/**
+	 * 背景の描画内容を決める状態のキー. 再生中の再描画ではアクティブトラック以外は変わらないため, キーも変わらない.
+	 * 描画ごとに計算するため, ノートの内容は含めない. ノートの編集時は {@link #invalidateBackground()} で破棄する.
+	 */
+	private long backgroundKey(int startOffsetX, double scaleX, double scaleY) {
+		MMLScore mmlScore = mmlManager.getMMLScore();
+		long h = ContentHash.INIT;
+		h = ContentHash.mix(h, Double.doubleToLongBits(wideScale));
+		h = ContentHash.mix(h, Double.doubleToLongBits(scaleX));
+		h = ContentHash.mix(h, Double.doubleToLongBits(scaleY));
+		h = ContentHash.mix(h, noteHeight.h);
+		h = ContentHash.mix(h, getWidth());
+		h = ContentHash.mix(h, startOffsetX);
+		h = ContentHash.mix(h, paintMode.ordinal());
+		h = ContentHash.mix(h, scaleColor.ordinal());
+		h = ContentHash.mix(h, noSoundColor.get().getRGB());
+		h = ContentHash.mix(h, System.identityHashCode(relativeInst));
+		h = ContentHash.mix(h, properties.enableEdit.get());
+		h = ContentHash.mix(h, properties.viewRange.get());
+		h = ContentHash.mix(h, properties.instAttr.get());
+		h = ContentHash.mix(h, System.identityHashCode(mmlScore));
+		h = ContentHash.mix(h, System.identityHashCode(mmlScore.getMeasureGrid()));
+		if (paintMode == PaintMode.ALL_TRACK) {
+			var activeTrack = mmlManager.getActiveTrack();
+			for (MMLTrack track : mmlScore.getTrackList()) {
+				if (track == activeTrack) {
+					h = ContentHash.mix(h, -1);
+					continue;
+				}
+				h = ContentHash.mix(h, track.isVisible());
+				h = ContentHash.mix(h, track.getProgram());
+				h = ContentHash.mix(h, track.getSongProgram());
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * 背景を固定サイズのタイル単位で描画し, キャッシュから転送します.
+	 * 描画キーが変わらなければ, スクロールで新しく表示されたタイルのみ描画します.
+	 */
+	private void paintBackgroundTiles(Graphics2D g, int startOffsetX) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		var transform = g.getTransform();
+		double scaleX = transform.getScaleX();
+		double scaleY = transform.getScaleY();
+		long key = backgroundKey(startOffsetX, scaleX, scaleY);
+		if (key != tileCacheKey) {
+			tileCache.clear();
+			tileCacheKey = key;
+		}
+
+		int tx1 = Math.max(clip.x, 0) / TILE_SIZE;
+		int tx2 = Math.min(clip.x + clip.width, getWidth()) / TILE_SIZE;
+		int ty1 = Math.max(clip.y, 0) / TILE_SIZE;
+		int ty2 = Math.min(clip.y + clip.height, getTotalHeight()) / TILE_SIZE;
+		for (int tx = tx1; tx <= tx2; tx++) {
+			for (int ty = ty1; ty <= ty2; ty++) {
+				long tileKey = ((long)tx << 32) | ty;
+				BufferedImage image = tileCache.get(tileKey);
+				if (image == null) {
+					image = renderTile(tx, ty, startOffsetX, scaleX, scaleY);
+					tileCache.put(tileKey, image);
+				}
+				g.drawImage(image, tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE, null);
+			}
+		}
+
+		// 表示中のタイル数の2倍までは保持し, それを超えたら古いものから破棄する.
+		int limit = Math.max(MIN_TILE_CACHE, (tx2 - tx1 + 1) * (ty2 - ty1 + 1) * 2);
+		Iterator<Long> it = tileCache.keySet().iterator();
+		while ( (tileCache.size() > limit) && it.hasNext() ) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	private BufferedImage renderTile(int tx, int ty, int startOffsetX, double scaleX, double scaleY) {
+		int w = (int) Math.ceil(TILE_SIZE * scaleX);
+		int h = (int) Math.ceil(TILE_SIZE * scaleY);
+		var gc = getGraphicsConfiguration();
+		BufferedImage image = (gc != null) ? gc.createCompatibleImage(w, h, Transparency.OPAQUE) : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.LIGHT_GRAY);
+		g.fillRect(0, 0, w, h);
+		g.scale(scaleX, scaleY);
+		int x = tx * TILE_SIZE;
+		int y = ty * TILE_SIZE;
+		g.translate(-x, -y);
+		g.clipRect(x, y, TILE_SIZE, TILE_SIZE);
+
+		// タイルの範囲のノートと小節線だけを描画する.
+		long viewStart = startViewTick;
+		long viewEnd = endViewTick;
+		startViewTick = convertXtoTick(x - 2);
+		endViewTick = convertXtoTick(x + TILE_SIZE) + 1;
+		paintBackground(g, startOffsetX);
+		startViewTick = viewStart;
+		endViewTick = viewEnd;
+		g.dispose();
+		return image;
+	}
+
 	private void paintOctPianoLine(Graphics2D g, int pos, int startOffsetX) {
 		int startY = 12 * noteHeight.h * pos;
 		int octave = OCTNUM - pos - 1;
@@ -463,36 +615,20 @@ public final class PianoRollView extends JPanel {
 	 */
 	private void paintMeasure(Graphics2D g) {
 		MMLScore score = mmlManager.getMMLScore();
-		int beatCount = 0;
-		int totalTick = 0;
 		int y = getTotalHeight();
 
-		var measure = new Measure(score, (int) startViewTick);
-		totalTick = measure.measuredTick();
-		int numTime = measure.getNumTime();
-		int beatTick = measure.getBeatTick();
-
-		while (totalTick <= endViewTick) {
-			if (totalTick >= startViewTick-beatTick) {
-				if (beatCount%numTime == 0) {
+		score.getMeasureGrid().forEachBeat((int) startViewTick, (int) endViewTick, (tick, measure, beat, beatTick) -> {
+			if (tick >= startViewTick-beatTick) {
+				if (beat == 0) {
 					g.setColor(darkBarBorder.get());
 				} else {
 					g.setColor(barBorder.get());
 				}
-				int x = convertTicktoX(totalTick);
+				int x = convertTicktoX(tick);
 				g.drawLine(x, 0, x, y);
 				paintHalfMeasure(g, x, convertTicktoX(beatTick));
 			}
-
-			totalTick += beatTick;
-			beatCount++;
-			if (beatCount >= numTime) {
-				beatCount = 0;
-				measure = new Measure(score, totalTick);
-				numTime = measure.getNumTime();
-				beatTick = measure.getBeatTick();
-			}
-		}
+		});
 	}
 
 	private void drawRect(Graphics2D g, Color rectColor, Color fillColor, int x, int y, int width, int height) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Sequencer;
+
+/**
+ * 再生中の表示更新のスケジューラ.
+ * <pre>
+ * 未処理のフレームは常に1つまでで, 前のフレームの描画が終わってから次のフレームを予約します.
+ * フレームの間隔は描画にかかった時間に合わせて広げ, UIスレッドが描画だけで埋まらないようにします.
+ * 再生位置はシーケンサの位置 (マイクロ秒) とその取得時刻から補間して求めます.
+ * シーケンサが停止すると, 次の再生開始 ({@link #start()}) まで何もしません.
+ * </pre>
+ */
+final class SequenceFrameScheduler {
+	/** 基本のフレーム間隔 (ms) */
+	static final long FRAME_INTERVAL = 25;
+	/** 描画が重い場合の最大のフレーム間隔 (ms) */
+	static final long MAX_FRAME_INTERVAL = 200;
+
+	/**
+	 * シーケンサの位置から, フレーム時点の再生位置を補間します.
+	 * シーケンサの位置は一定間隔でしか進まないため, 同じ値が続く間は経過時間分を進めます.
+	 */
+	static final class PositionEstimator {
+		/** 補間する最大の時間 (us). これ以上シーケンサが進まなければ止まっているとみなす. */
+		static final long MAX_EXTRAPOLATION = 100_000;
+
+		private long sampleUs = -1;
+		private long sampleTick;
+		private long sampleNanos;
+		private long lastTick = -1;
+
+		/**
+		 * @param us            シーケンサの位置 (マイクロ秒)
+		 * @param tick          シーケンサの位置 (tick)
+		 * @param nanos         取得した時刻 (System.nanoTime)
+		 * @param ticksPerUs    現在のテンポでの1マイクロ秒あたりのtick
+		 * @return フレーム時点の再生位置 (tick)
+		 */
+		long estimate(long us, long tick, long nanos, double ticksPerUs) {
+			boolean forward = (us >= sampleUs);
+			if (us != sampleUs) {
+				sampleUs = us;
+				sampleTick = tick;
+				sampleNanos = nanos;
+			}
+			long elapsedUs = Math.min(Math.max((nanos - sampleNanos) / 1000, 0), MAX_EXTRAPOLATION);
+			long estimateTick = sampleTick + (long)(elapsedUs * ticksPerUs);
+			if (forward && (estimateTick < lastTick)) {
+				// 補間が先行した分はシーケンサが追いつくまで待つ.
+				estimateTick = lastTick;
+			}
+			lastTick = estimateTick;
+			return estimateTick;
+		}
+
+		void reset() {
+			sampleUs = -1;
+			lastTick = -1;
+		}
+	}
+
+	private final Sequencer sequencer;
+	private final LongConsumer frame;
+	private final Runnable stopped;
+	private final PositionEstimator estimator = new PositionEstimator();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "SequenceFrameScheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private boolean active = false;
+	private long postTime;
+	private double averageCostNs = 0;
+
+	// フレーム時間の統計
+	private long frameCount;
+	private long totalCostNs;
+	private long maxCostNs;
+
+	/**
+	 * @param sequencer  再生位置を取得するシーケンサ
+	 * @param frame      UIスレッドで呼ばれるフレーム処理. 引数は再生位置 (tick)
+	 * @param stopped    再生停止後に一度だけUIスレッドで呼ばれる処理. フレーム時間の統計はこの時点で参照できる
+	 */
+	SequenceFrameScheduler(Sequencer sequencer, LongConsumer frame, Runnable stopped) {
+		this.sequencer = sequencer;
+		this.frame = frame;
+		this.stopped = stopped;
+	}
+
+	/**
+	 * 再生開始時に呼び出します. すでにフレームを処理中であれば何もしません.
+	 */
+	synchronized void start() {
+		if (!active) {
+			active = true;
+			frameCount = 0;
+			totalCostNs = 0;
+			maxCostNs = 0;
+			executor.execute(this::requestFrame);
+		}
+	}
+
+	private void requestFrame() {
+		synchronized (this) {
+			if (!sequencer.isRunning()) {
+				active = false;
+				EventQueue.invokeLater(this::stop);
+				return;
+			}
+			postTime = System.nanoTime();
+		}
+		EventQueue.invokeLater(this::runFrame);
+	}
+
+	private double ticksPerMicrosecond() {
+		Sequence sequence = sequencer.getSequence();
+		if ( (sequence == null) || (sequence.getDivisionType() != Sequence.PPQ) ) {
+			return 0;
+		}
+		return sequence.getResolution() * sequencer.getTempoFactor() / sequencer.getTempoInMPQ();
+	}
+
+	private void runFrame() {
+		long tick = estimator.estimate(sequencer.getMicrosecondPosition(), sequencer.getTickPosition(), System.nanoTime(), ticksPerMicrosecond());
+		frame.accept(tick);
+		// フレーム処理で要求した再描画の後に処理される.
+		EventQueue.invokeLater(this::frameDone);
+	}
+
+	private void frameDone() {
+		long delay;
+		synchronized (this) {
+			delay = recordFrame(System.nanoTime() - postTime);
+		}
+		executor.schedule(this::requestFrame, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * フレームにかかった時間を統計に加えます.
+	 * @param costNs  フレームの要求から描画が終わるまでの時間 (ns)
+	 * @return 次のフレームまでの待ち時間 (ms)
+	 */
+	synchronized long recordFrame(long costNs) {
+		frameCount++;
+		totalCostNs += costNs;
+		maxCostNs = Math.max(maxCostNs, costNs);
+		averageCostNs = (averageCostNs == 0) ? costNs : (averageCostNs * 0.9 + costNs * 0.1);
+		return nextDelay((long) averageCostNs / 1000000);
+	}
+
+	/**
+	 * 次のフレームまでの待ち時間. フレームにかかった時間以上は待ち, UIスレッドの占有を半分以下にする.
+	 * @param costMs  フレームにかかった時間 (ms)
+	 */
+	static long nextDelay(long costMs) {
+		long interval = Math.min(Math.max(FRAME_INTERVAL, costMs * 2), MAX_FRAME_INTERVAL);
+		return Math.max(interval - costMs, 0);
+	}
+
+	private void stop() {
+		estimator.reset();
+		stopped.run();
+	}
+
+	synchronized long getFrameCount() {
+		return frameCount;
+	}
+
+	synchronized long getAverageFrameTimeUs() {
+		return (frameCount > 0) ? (totalCostNs / frameCount / 1000) : 0;
+	}
+
+	synchronized long getMaxFrameTimeUs() {
+		return maxCostNs / 1000;
+	}
+}
@@ -47,10 +47,8 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 
 	private EditMode editMode = EditMode.SELECT;
 
-	// 編集選択中のノート
-	private final ArrayList<MMLNoteEvent> selectedNote = new ArrayList<>();
-	// 編集中のdetachノートリスト
-	private final ArrayList<MMLNoteEvent> detachedNote = new ArrayList<>();
+	// 編集選択中のノート (編集中のdetach状態を含む)
+	private final NoteSelection selectedNote = new NoteSelection();
 
 	// 編集align (tick base)
 	private int editAlign = 48;
@@ -75,7 +73,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		this.mmlManager = mmlManager;
 		this.parentFrame = parentFrame;
 
-		pianoRoll.setSelectNote(selectedNote);
+		pianoRoll.setSelectNote(selectedNote.list());
 		pianoRoll.addMouseInputListener(this);
 
 		velocityChangeMenu = new VelocityChangeMenu(popupMenu,
@@ -87,9 +85,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 				},
 				t -> {
 					// 選択したノートの音量を変更する.
-					for(MMLNoteEvent n : selectedNote) {
-						n.setVelocity(t);
-					}
+					selectedNote.setVelocity(t);
 					mmlManager.generateActiveTrack();
 				});
 		newPopupMenu(AppResource.appText("part_change"), ActionDispatcher.PART_CHANGE);
@@ -192,7 +188,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 					&& (noteEvent.getEndTick() > tickOffset[0])
 					&& (noteEvent.getTickOffset() <= tickOffset[1]) ) {
 				selectedNote.add(noteEvent);
-			} else if (detachedNote.contains(noteEvent)) {
+			} else if (selectedNote.isDetached(noteEvent)) {
 				selectedNote.add(noteEvent);
 			}
 		}
@@ -295,10 +291,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 
 	@Override
 	public void detachSelectedMMLNote() {
-		detachedNote.clear();
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			detachedNote.add(noteEvent.clone());
-		}
+		selectedNote.detach();
 	}
 	/**
 	 * 選択状態のノートを移動する
@@ -333,20 +326,20 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 				alignedTickOffsetDelta -= (tickOffsetDelta % editAlign);
 			}
 		}
-		if (detachedNote.get(0).getTickOffset() + alignedTickOffsetDelta < startOffset) {
-			alignedTickOffsetDelta = startOffset - detachedNote.get(0).getTickOffset();
+		MMLNoteEvent firstNote = selectedNote.detachedOf(selectedNote.get(0));
+		if (firstNote.getTickOffset() + alignedTickOffsetDelta < startOffset) {
+			alignedTickOffsetDelta = startOffset - firstNote.getTickOffset();
 		}
 
-		int velocity = detachedNote.get(0).getVelocity();
-		for (int i = 0; i < selectedNote.size(); i++) {
-			MMLNoteEvent note1 = detachedNote.get(i);
-			MMLNoteEvent note2 = selectedNote.get(i);
-			note2.setNote(note1.getNote() + noteDelta);
-			note2.setTickOffset(note1.getTickOffset() + (int)alignedTickOffsetDelta);
+		selectedNote.move(noteDelta, (int)alignedTickOffsetDelta);
+		int velocity = firstNote.getVelocity();
+		for (MMLNoteEvent note2 : selectedNote.list()) {
+			MMLNoteEvent note1 = selectedNote.detachedOf(note2);
 			if ( (note1.getTickOffset() <= startTick) && (note1.getEndTick() > startTick) ) {
 				velocity = note2.getVelocity();
 				// ノート情報表示
 				pianoRollView.setPaintNoteInfo(showInfo ? note2 : null);
+				break;
 			}
 		}
 
@@ -355,14 +348,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 
 	@Override
 	public void cancelEdit() {
-		int i = 0;
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			MMLNoteEvent revertNote = detachedNote.get(i++);
-			noteEvent.setNote(revertNote.getNote());
-			noteEvent.setTickOffset(revertNote.getTickOffset());
-			noteEvent.setTick(revertNote.getTick());
-		}
-		detachedNote.clear();
+		selectedNote.revert();
 	}
 
 	/**
@@ -375,8 +361,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		if (editEventList == null) {
 			return;
 		}
-		selectedNote.forEach(note -> editEventList.deleteMMLEvent(note));
-		selectedNote.forEach(note -> editEventList.addMMLNoteEvent(note));
+		selectedNote.applyTo(editEventList);
 		if (!select) {
 			selectNote(null);
 		}
@@ -419,6 +404,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 	@Override
 	public void applyAreaSelect() {
 		pianoRollView.setSelectingArea(null);
+		selectedNote.clearDetached();
 	}
 
 	/**
@@ -575,15 +561,10 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		if (editEventList == null) {
 			return;
 		}
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			var note = noteEvent.getNote() + value;
-			if ( (note < -1) || (note >= 108) ) {
-				// 移動後に1つでも範囲外となる場合は処理しない.
-				return;
-			}
+		// 移動後に1つでも範囲外となる場合は処理しない.
+		if (selectedNote.transpose(value)) {
+			mmlManager.updateActivePart(true);
 		}
-		selectedNote.forEach(t -> t.setNote(t.getNote() + value));
-		mmlManager.updateActivePart(true);
 	}
 
 	@Override
@@ -651,12 +632,14 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		selectNote(null);
 		MMLEventList clipEventList = fromClipBoard();
 		int delta = (int)( startTick - clipEventList.getMMLNoteEventList().get(0).getTickOffset() );
+		List<MMLNoteEvent> addList = new ArrayList<>(clipEventList.getMMLNoteEventList().size());
 		for (MMLNoteEvent noteEvent : clipEventList.getMMLNoteEventList()) {
 			MMLNoteEvent addNote = noteEvent.clone();
 			addNote.setTickOffset(noteEvent.getTickOffset() + delta);
-			editEventList.addMMLNoteEvent(addNote);
-			selectNote(addNote, true);
+			addList.add(addNote);
 		}
+		editEventList.addMMLNoteEvents(addList);
+		selectedNote.addAll(addList);
 
 		editObserver.notifyUpdateEditState();
 		mmlManager.updateActivePart(true);
@@ -669,10 +652,8 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 			return;
 		}
 		MMLEventList clipEventList = new MMLEventList("");
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			clipEventList.addMMLNoteEvent(noteEvent);
-			editEventList.deleteMMLEvent(noteEvent);
-		}
+		clipEventList.addMMLNoteEvents(selectedNote.list());
+		selectedNote.deleteFrom(editEventList);
 
 		toClipBoard(clipEventList);
 		selectNote(null);
@@ -683,9 +664,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 	@Override
 	public void selectedCopy() {
 		MMLEventList clipEventList = new MMLEventList("");
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			clipEventList.addMMLNoteEvent(noteEvent);
-		}
+		clipEventList.addMMLNoteEvents(selectedNote.list());
 
 		toClipBoard(clipEventList);
 		editObserver.notifyUpdateEditState();
@@ -697,9 +676,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		if (editEventList == null) {
 			return;
 		}
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			editEventList.deleteMMLEvent(noteEvent);
-		}
+		selectedNote.deleteFrom(editEventList);
 
 		selectNote(null);
 		editObserver.notifyUpdateEditState();
@@ -714,7 +691,8 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 
 		MMLEventList editEventList = mmlManager.getActiveMMLPart();
 		if (editEventList != null) {
-			new MMLNotePropertyPanel(selectedNote.toArray(new MMLNoteEvent[selectedNote.size()]), editEventList).showDialog(parentFrame);
+			new MMLNotePropertyPanel(selectedNote.list().toArray(new MMLNoteEvent[selectedNote.size()]), editEventList).showDialog(parentFrame);
+			selectedNote.sort();
 			mmlManager.generateActiveTrack();
 		}
 	}
@@ -771,9 +749,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 
 	@Override
 	public void setTempMute(boolean mute) {
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			noteEvent.setMute(mute);
-		}
+		selectedNote.setMute(mute);
 		pianoRollView.repaint();
 	}
 
@@ -786,6 +762,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 				}
 			}
 		}
+		pianoRollView.invalidateBackground();
 		pianoRollView.repaint();
 	}
 
@@ -800,20 +777,16 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 			return;
 		}
 
-		selectedNote.sort(Comparator.comparingInt(t -> t.getTickOffset()));
 		int startTick = selectedNote.get(0).getTickOffset();
 		int tick = selectedNote.get(size-1).getEndTick() - startTick;
-		for (MMLNoteEvent noteEvent : selectedNote) {
-			editEventList.deleteMMLEvent(noteEvent);
-		}
 		for (int i = 0; i < size; i++) {
 			var noteEvent = selectedNote.get(i);
 			int t1 = tick * i / size;
 			int t2 = tick * (i+1) / size;
 			noteEvent.setTickOffset(t1+startTick);
 			noteEvent.setTick(t2-t1);
-			editEventList.addMMLNoteEvent(noteEvent);
 		}
+		selectedNote.applyTo(editEventList);
 
 		selectNote(null);
 		editObserver.notifyUpdateEditState();
@@ -825,8 +798,8 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 		if (selectedNote.size() == 0) {
 			return null;
 		}
-		MMLNoteEvent startNote = selectedNote.stream().min(Comparator.comparingInt(t -> t.getTickOffset())).get();
-		MMLNoteEvent endNote = selectedNote.stream().max(Comparator.comparingInt(t -> t.getEndTick())).get();
+		MMLNoteEvent startNote = selectedNote.get(0);
+		MMLNoteEvent endNote = selectedNote.list().stream().max(Comparator.comparingInt(t -> t.getEndTick())).get();
 		int startTick = from.getAlignmentStartTick(to, startNote.getTickOffset());
 		int endTick = from.getAlignmentEndTick(to, endNote.getEndTick());
 		return new TickRange(startTick, endTick);
@@ -924,7 +897,7 @@ public final class MMLEditor implements MouseInputListener, IEditState, IEditCon
 	public void notesModifyVelocity(Point point, boolean inc) {
 		MMLNoteEvent noteEvent = pointToNote(point);
 		if (!selectedNote.isEmpty()) {
-			selectedNote.forEach(t -> t.modifyVelocity(inc));
+			selectedNote.modifyVelocity(inc);
 			mmlManager.updateActivePart(true);
 		} else if (noteEvent != null) {
 			noteEvent.modifyVelocity(inc);
@@ -4,18 +4,9 @@
 
 package jp.fourthline.mabiicco.ui.editor;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.PrintStream;
-import java.io.StringReader;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Stack;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.function.Consumer;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -38,7 +29,8 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 	private final IMMLManager mmlManager;
 	private int originalIndex = 0; /** オリジナル位置. undo/redo範囲外になった場合は 負値. 0~size-1 */
 
-	private String backupString = null;
+	/** 復旧用ジャーナル. 使用しない場合は null */
+	private RecoveryJournal journal = null;
 
 	public MMLScoreUndoEdit(IMMLManager mmlManager) {
 		this.mmlManager = mmlManager;
@@ -50,6 +42,7 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 		originalIndex = 0;
 
 		saveState();
+		compactJournal();
 	}
 
 	@Override
@@ -60,6 +53,16 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 			return;
 		}
 
+		pushState(state);
+		journal(t -> t.push(state));
+
+		if (fileStateObserver != null)
+			fileStateObserver.notifyUpdateFileState();
+
+		System.out.println("saveState() "+undoState.size());
+	}
+
+	private void pushState(byte[] state) {
 		undoState.push(state);
 		redoState.clear();
 
@@ -67,12 +70,6 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 			undoState.remove(0);
 			originalIndex = -1;
 		}
-
-		if (fileStateObserver != null)
-			fileStateObserver.notifyUpdateFileState();
-
-		System.out.println("saveState() "+undoState.size());
-		makeBackup();
 	}
 
 	@Override
@@ -90,7 +87,7 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 			byte[] nextState = undoState.pop();
 			score.putObjectState(undoState.lastElement());
 			redoState.push(nextState);
-			makeBackup();
+			journal(t -> t.undo());
 			if (fileStateObserver != null)
 				fileStateObserver.notifyUpdateFileState();
 		}
@@ -105,7 +102,7 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 			byte[] state = redoState.pop();
 			score.putObjectState(state);
 			undoState.push(state);
-			makeBackup();
+			journal(t -> t.redo());
 			if (fileStateObserver != null)
 				fileStateObserver.notifyUpdateFileState();
 		}
@@ -129,6 +126,7 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 	@Override
 	public void setOriginalBase() {
 		originalIndex = undoState.size() - 1;
+		journal(t -> t.setOriginalIndex(originalIndex));
 	}
 
 	@Override
@@ -136,112 +134,71 @@ public final class MMLScoreUndoEdit extends AbstractUndoableEdit implements IFil
 		this.fileStateObserver = observer;
 	}
 
-	private void makeBackup() {
-		try {
-			backupString = compress(makeBackupString());
-		} catch (IOException e) {
-			backupString = null;
-		}
+	/**
+	 * 復旧用ジャーナルへの記録を開始します. 現在の状態を書き込みます.
+	 * @param journal
+	 */
+	public void setJournal(RecoveryJournal journal) {
+		this.journal = journal;
+		journal.start(undoState, redoState, originalIndex);
 	}
 
-	private void writeStack(PrintStream out, Stack<byte[]> data) throws IOException {
-		out.println(data.size());
-		for (byte[] datum : data) {
-			out.println(Base64.getEncoder().encodeToString(datum));
+	private void compactJournal() {
+		if (journal != null) {
+			journal.compact(undoState, redoState, originalIndex);
 		}
 	}
 
-	private void readStack(BufferedReader in, Stack<byte[]> data) throws IOException {
-		data.clear();
-		int count = Integer.parseInt(in.readLine());
-		for (int i = 0; i < count; i++) {
-			data.add( Base64.getDecoder().decode( in.readLine() ));
-		}
-	}
-
-	private String makeBackupString() throws IOException {
-		ByteArrayOutputStream bstream = new ByteArrayOutputStream();
-		PrintStream pstream = new PrintStream(bstream, false, StandardCharsets.UTF_8);
-		pstream.println(serialVersionUID);
-
-		// undoState@Stack<byte[]>
-		writeStack(pstream, undoState);
-
-		// redoState@Stack<byte[]>
-		writeStack(pstream, redoState);
-
-		// originalIndex@int
-		pstream.println(originalIndex);
-
-		pstream.close();
-		return bstream.toString();
-	}
-
-	private boolean parseBackupString(String s) throws IOException, NumberFormatException {
-		BufferedReader breader = new BufferedReader(new StringReader(s));
-		long serial = Long.parseLong( breader.readLine() );
-		if (serial != serialVersionUID) {
-			return false;
+	private void journal(Consumer<RecoveryJournal> action) {
+		if (journal != null) {
+			action.accept(journal);
+			if (journal.needCompact()) {
+				compactJournal();
+			}
 		}
-
-		// undoState@Stack<byte[]>
-		readStack(breader, undoState);
-
-		// redoState@Stack<byte[]>
-		readStack(breader, redoState);
-
-		// originalIndex@int
-		originalIndex = Integer.parseInt( breader.readLine() );
-
-		return true;
 	}
 
-	private String compress(String s) {
-		try {
-			ByteArrayOutputStream bstream = new ByteArrayOutputStream();
-			GZIPOutputStream out = new GZIPOutputStream( bstream );
-			out.write(s.getBytes());
-			out.close();
-			bstream.close();
-			return Base64.getEncoder().encodeToString(bstream.toByteArray());
-		} catch (IOException e) {
-			System.out.println(e.getMessage());
-		}
-		return null;
-	}
-
-	private String decompress(String s) {
-		try {
-			GZIPInputStream in = new GZIPInputStream(
-					new ByteArrayInputStream(
-							Base64.getDecoder().decode(s.getBytes())));
-			ByteArrayOutputStream bstream = new ByteArrayOutputStream();
-			while (in.available() != 0) {
-				int c = in.read();
-				if (c >= 0) {
-					bstream.write(c);
+	/**
+	 * 復旧用ジャーナルからundo/redoの状態を復元します.
+	 * @param journal  前回のジャーナル
+	 * @return 復元できた場合は true
+	 */
+	public boolean recover(RecoveryJournal journal) {
+		undoState.clear();
+		redoState.clear();
+		originalIndex = 0;
+		boolean result = journal.read((type, state, value) -> {
+			switch (type) {
+			case 'I':
+				undoState.clear();
+				redoState.clear();
+				originalIndex = 0;
+				undoState.push(state);
+				break;
+			case 'P':
+				pushState(state);
+				break;
+			case 'A':
+				undoState.push(state);
+				break;
+			case 'D':
+				redoState.push(state);
+				break;
+			case 'U':
+				if (canUndo()) {
+					redoState.push(undoState.pop());
+				}
+				break;
+			case 'R':
+				if (canRedo()) {
+					undoState.push(redoState.pop());
 				}
+				break;
+			case 'O':
+				originalIndex = value;
+				break;
 			}
-			bstream.close();
-			return bstream.toString();
-		} catch (IOException e) {
-			System.out.println(e.getMessage());
-		}
-		return null;
-	}
-
-	public boolean recover(String s) {
-		try {
-			boolean result = parseBackupString(decompress(s));
-			makeBackup();
-			return result;
-		} catch (NumberFormatException | IOException e) {
-			System.out.println(e.getMessage());
-		}
-		return false;
-	}
-
-	public String getBackupString() {
-		return backupString;
+		});
+		return result && !undoState.empty();
 	}
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui.editor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import jp.fourthline.mmlTools.MMLEventList;
+import jp.fourthline.mmlTools.MMLNoteEvent;
+
+/**
+ * 編集選択中のノート.
+ * <pre>
+ * ノートは同一性 (==) で管理し, 選択の判定は内容の比較をせずに行います.
+ * 選択中のノートは tickOffset 順のリストとして参照できます.
+ * 移動, 音程, 音量, 削除はパートに対して一括で適用します.
+ * </pre>
+ */
+final class NoteSelection {
+	private static final Comparator<MMLNoteEvent> TICK_ORDER = Comparator.comparingInt(MMLNoteEvent::getTickOffset);
+
+	private final Set<MMLNoteEvent> set = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final ArrayList<MMLNoteEvent> list = new ArrayList<>();
+	private final List<MMLNoteEvent> view = Collections.unmodifiableList(list);
+
+	// 編集前の状態 (選択中のノート → 複製)
+	private final IdentityHashMap<MMLNoteEvent, MMLNoteEvent> detached = new IdentityHashMap<>();
+
+	/**
+	 * @return tickOffset順の選択中ノート (変更不可, 選択に追従する)
+	 */
+	List<MMLNoteEvent> list() {
+		return view;
+	}
+
+	int size() {
+		return list.size();
+	}
+
+	boolean isEmpty() {
+		return list.isEmpty();
+	}
+
+	boolean contains(MMLNoteEvent noteEvent) {
+		return set.contains(noteEvent);
+	}
+
+	/**
+	 * @param index tickOffset順のindex
+	 */
+	MMLNoteEvent get(int index) {
+		return list.get(index);
+	}
+
+	void clear() {
+		set.clear();
+		list.clear();
+	}
+
+	boolean add(MMLNoteEvent noteEvent) {
+		if (!set.add(noteEvent)) {
+			return false;
+		}
+		int size = list.size();
+		if ( (size == 0) || (TICK_ORDER.compare(list.get(size-1), noteEvent) <= 0) ) {
+			list.add(noteEvent);
+		} else {
+			int index = Collections.binarySearch(list, noteEvent, TICK_ORDER);
+			list.add((index < 0) ? -(index+1) : index+1, noteEvent);
+		}
+		return true;
+	}
+
+	void addAll(Collection<MMLNoteEvent> c) {
+		c.forEach(this::add);
+	}
+
+	/**
+	 * ノートの位置を個別に変更した後に, tickOffset順に並べ直します.
+	 */
+	void sort() {
+		list.sort(TICK_ORDER);
+	}
+
+	/**
+	 * 現在の選択ノートの状態を保存します. 移動, 取り消しの基準になります.
+	 */
+	void detach() {
+		detached.clear();
+		list.forEach(t -> detached.put(t, t.clone()));
+	}
+
+	/**
+	 * @return detach時に選択されていたノートであれば true
+	 */
+	boolean isDetached(MMLNoteEvent noteEvent) {
+		return detached.containsKey(noteEvent);
+	}
+
+	/**
+	 * @return detach時の状態. detach後に追加されたノートであれば null
+	 */
+	MMLNoteEvent detachedOf(MMLNoteEvent noteEvent) {
+		return detached.get(noteEvent);
+	}
+
+	void clearDetached() {
+		detached.clear();
+	}
+
+	/**
+	 * 選択中のノートをdetach時の状態に戻します.
+	 */
+	void revert() {
+		for (MMLNoteEvent noteEvent : list) {
+			MMLNoteEvent revertNote = detached.get(noteEvent);
+			if (revertNote != null) {
+				noteEvent.setNote(revertNote.getNote());
+				noteEvent.setTickOffset(revertNote.getTickOffset());
+				noteEvent.setTick(revertNote.getTick());
+			}
+		}
+		detached.clear();
+		sort();
+	}
+
+	/**
+	 * detach時の状態から, 選択中のノートをまとめて移動します. 全てのノートを同じだけ動かすため, 並び順は変わりません.
+	 * @param noteDelta
+	 * @param tickOffsetDelta
+	 */
+	void move(int noteDelta, int tickOffsetDelta) {
+		for (MMLNoteEvent noteEvent : list) {
+			MMLNoteEvent base = detached.get(noteEvent);
+			if (base != null) {
+				noteEvent.setNote(base.getNote() + noteDelta);
+				noteEvent.setTickOffset(base.getTickOffset() + tickOffsetDelta);
+			}
+		}
+	}
+
+	/**
+	 * 選択中のノートの音程を変更します.
+	 * @param value
+	 * @return 変更後に1つでも範囲外となる場合は変更せずに false
+	 */
+	boolean transpose(int value) {
+		for (MMLNoteEvent noteEvent : list) {
+			int note = noteEvent.getNote() + value;
+			if ( (note < -1) || (note >= 108) ) {
+				return false;
+			}
+		}
+		list.forEach(t -> t.setNote(t.getNote() + value));
+		return true;
+	}
+
+	void setVelocity(int velocity) {
+		list.forEach(t -> t.setVelocity(velocity));
+	}
+
+	void modifyVelocity(boolean inc) {
+		list.forEach(t -> t.modifyVelocity(inc));
+	}
+
+	void setMute(boolean mute) {
+		list.forEach(t -> t.setMute(mute));
+	}
+
+	/**
+	 * 選択中のノートをパートから削除します.
+	 */
+	void deleteFrom(MMLEventList eventList) {
+		eventList.deleteMMLEvents(list);
+	}
+
+	/**
+	 * 編集した選択中のノートをパートに反映します. (削除と, tickOffset順での挿入をそれぞれ1回の走査で行う)
+	 */
+	void applyTo(MMLEventList eventList) {
+		detached.clear();
+		sort();
+		eventList.deleteMMLEvents(list);
+		eventList.addMMLNoteEvents(view);
+	}
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui.editor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 復旧用ジャーナル.
+ * <pre>
+ * 編集状態 (undo/redo) の変更を1行1レコードでファイルに追記します.
+ * スコアの状態は直前に書いた状態との差分 (先頭・末尾の一致長と, 間のバイト列) で記録します.
+ *   F name                     ファイル名 (Base64)
+ *   I prefix suffix len data   undo/redoを初期化して状態を追加
+ *   P prefix suffix len data   編集 (saveState)
+ *   A prefix suffix len data   undoに状態を追加 (圧縮時)
+ *   D prefix suffix len data   redoに状態を追加 (圧縮時)
+ *   U / R                      undo / redo
+ *   O index                    オリジナル位置
+ * 書き込みは専用スレッドで一定時間ごとにまとめて行い, レコード数が増えると現在の状態だけを書いた新しいファイルに置き換えます.
+ * 正常終了時にファイルを削除するため, 起動時にファイルが残っていれば前回は異常終了しています.
+ * 同時に起動した別プロセスとはロックファイルで排他し, ロックを取れない場合はジャーナルを使用しません.
+ * </pre>
+ */
+public final class RecoveryJournal {
+
+	/**
+	 * 読み込んだレコードの処理.
+	 */
+	@FunctionalInterface
+	public interface RecordConsumer {
+		/**
+		 * @param type   レコード種別 ('I', 'P', 'A', 'D', 'U', 'R', 'O')
+		 * @param state  スコアの状態. 状態を持たないレコードでは null
+		 * @param value  'O' のオリジナル位置
+		 */
+		void accept(char type, byte[] state, int value);
+	}
+
+	private static final class Entry {
+		private final char type;
+		private final byte[] state;
+		private final String text;
+		private final List<byte[]> undo;
+		private final List<byte[]> redo;
+		private final CountDownLatch latch;
+
+		private Entry(char type, byte[] state, String text, List<byte[]> undo, List<byte[]> redo, CountDownLatch latch) {
+			this.type = type;
+			this.state = state;
+			this.text = text;
+			this.undo = undo;
+			this.redo = redo;
+			this.latch = latch;
+		}
+	}
+
+	/** まとめて書き込むまでの待ち時間 (ms) */
+	private static final int BATCH_DELAY = 200;
+	/** 圧縮するまでのレコード数 */
+	private static final int COMPACT_RECORDS = 200;
+
+	private static final char COMPACT = 'C';
+	private static final char FLUSH = '#';
+	private static final char CLOSE = '.';
+
+	private final File file;
+	private final File newFile;
+	private final RandomAccessFile lockFile;
+	private final FileLock lock;
+
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private Thread writerThread = null;
+	private int recordCount = 0;
+	private volatile String fileName = "";
+	private String recoveredFileName = "";
+
+	/** 以下は書き込みスレッドのみ使用 */
+	private Writer writer = null;
+	private byte[] lastState = null;
+
+	private RecoveryJournal(File file, RandomAccessFile lockFile, FileLock lock) {
+		this.file = file;
+		this.newFile = new File(file.getPath() + ".new");
+		this.lockFile = lockFile;
+		this.lock = lock;
+	}
+
+	/**
+	 * ジャーナルのロックを取得します.
+	 * @param file  ジャーナルファイル
+	 * @return 他のプロセスが使用中の場合は null
+	 */
+	public static RecoveryJournal lock(File file) {
+		RandomAccessFile lockFile = null;
+		try {
+			lockFile = new RandomAccessFile(lockFileOf(file), "rw");
+			FileLock lock = lockFile.getChannel().tryLock();
+			if (lock != null) {
+				return new RecoveryJournal(file, lockFile, lock);
+			}
+		} catch (IOException | OverlappingFileLockException e) {
+			System.err.println("RecoveryJournal: " + e.getMessage());
+		}
+		try {
+			if (lockFile != null) {
+				lockFile.close();
+			}
+		} catch (IOException e) {}
+		return null;
+	}
+
+	private static File lockFileOf(File file) {
+		return new File(file.getPath() + ".lock");
+	}
+
+	/**
+	 * 前回の (異常終了した) ジャーナルがあるかどうか.
+	 */
+	public boolean exists() {
+		return file.exists() || newFile.exists();
+	}
+
+	/**
+	 * 前回のジャーナルを .bak として退避します.
+	 */
+	public void backup() {
+		File source = file.exists() ? file : newFile;
+		File backupFile = new File(file.getPath() + ".bak");
+		backupFile.delete();
+		source.renameTo(backupFile);
+		newFile.delete();
+	}
+
+	/**
+	 * 前回のジャーナルを読み込みます. 途中で壊れているレコードがあれば, その直前までを読み込みます.
+	 * @param consumer
+	 * @return 1つ以上のレコードを読み込めた場合は true
+	 */
+	public boolean read(RecordConsumer consumer) {
+		// 圧縮の途中で終了した場合は, 元のファイルが完全な状態で残っている.
+		File source = file.exists() ? file : newFile;
+		recoveredFileName = "";
+		int count = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.US_ASCII))) {
+			byte[] state = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				String[] s = line.split(" ", -1);
+				char type = s[0].charAt(0);
+				switch (type) {
+				case 'F':
+					recoveredFileName = new String(Base64.getDecoder().decode(s[1]), StandardCharsets.UTF_8);
+					break;
+				case 'I':
+				case 'P':
+				case 'A':
+				case 'D':
+					state = applyDelta(type == 'I' ? null : state, s);
+					consumer.accept(type, state, 0);
+					break;
+				case 'U':
+				case 'R':
+					consumer.accept(type, null, 0);
+					break;
+				case 'O':
+					consumer.accept(type, null, Integer.parseInt(s[1]));
+					break;
+				default:
+					throw new IllegalArgumentException(line);
+				}
+				count++;
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("RecoveryJournal: " + e.getMessage());
+		}
+		return count > 0;
+	}
+
+	/**
+	 * read() で読み込んだファイル名.
+	 */
+	public String getRecoveredFileName() {
+		return recoveredFileName;
+	}
+
+	/**
+	 * 書き込みを開始します. 前回のジャーナルは破棄されます.
+	 * @param undo           現在のundo状態
+	 * @param redo           現在のredo状態
+	 * @param originalIndex  現在のオリジナル位置
+	 */
+	public synchronized void start(List<byte[]> undo, List<byte[]> redo, int originalIndex) {
+		if (writerThread != null) {
+			return;
+		}
+		compact(undo, redo, originalIndex);
+		writerThread = new Thread(this::writerLoop, "RecoveryJournal");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	private void put(Entry entry) {
+		queue.add(entry);
+	}
+
+	private void put(char type, byte[] state, String text) {
+		put(new Entry(type, state, text, null, null, null));
+		recordCount++;
+	}
+
+	/**
+	 * 圧縮が必要かどうか.
+	 */
+	public boolean needCompact() {
+		return recordCount > COMPACT_RECORDS;
+	}
+
+	/**
+	 * 現在の状態だけを書いたファイルに置き換えます.
+	 * @param undo           undo状態 (古い順)
+	 * @param redo           redo状態 (スタックの底から順)
+	 * @param originalIndex
+	 */
+	public void compact(List<byte[]> undo, List<byte[]> redo, int originalIndex) {
+		put(new Entry(COMPACT, null, Integer.toString(originalIndex), new ArrayList<>(undo), new ArrayList<>(redo), null));
+		recordCount = 0;
+	}
+
+	public void push(byte[] state) {
+		put('P', state, null);
+	}
+
+	public void undo() {
+		put('U', null, null);
+	}
+
+	public void redo() {
+		put('R', null, null);
+	}
+
+	public void setOriginalIndex(int index) {
+		put('O', null, Integer.toString(index));
+	}
+
+	/**
+	 * 編集中のファイル名を設定します.
+	 * @param name  ファイル名. 新規の場合は空文字列
+	 */
+	public void setFileName(String name) {
+		if (!fileName.equals(name)) {
+			fileName = name;
+			put('F', null, encodeFileName(name));
+		}
+	}
+
+	private static String encodeFileName(String name) {
+		return Base64.getEncoder().encodeToString(name.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * ここまでのレコードを書き込むまで待ちます.
+	 */
+	public void flush() {
+		if (writerThread == null) {
+			return;
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		put(new Entry(FLUSH, null, null, null, null, latch));
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {}
+	}
+
+	/**
+	 * 書き込みを終了し, ジャーナルとロックファイルを削除します. (正常終了時)
+	 */
+	public void close() {
+		if (writerThread != null) {
+			put(new Entry(CLOSE, null, null, null, null, null));
+			try {
+				writerThread.join(5000);
+			} catch (InterruptedException e) {}
+		}
+		file.delete();
+		newFile.delete();
+		try {
+			lock.release();
+			lockFile.close();
+		} catch (IOException e) {}
+		lockFileOf(file).delete();
+	}
+
+	private void writerLoop() {
+		List<Entry> batch = new ArrayList<>();
+		while (true) {
+			try {
+				Entry first = queue.take();
+				if ( (first.type != FLUSH) && (first.type != CLOSE) ) {
+					Thread.sleep(BATCH_DELAY);
+				}
+				batch.add(first);
+				queue.drainTo(batch);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			boolean close = false;
+			for (Entry entry : batch) {
+				try {
+					switch (entry.type) {
+					case COMPACT:
+						writeCompact(entry);
+						break;
+					case FLUSH:
+						break;
+					case CLOSE:
+						close = true;
+						break;
+					default:
+						writeRecord(entry);
+					}
+				} catch (IOException e) {
+					// 圧縮に失敗しても, 続くレコードは追記を再開したファイルに書く.
+					System.err.println("RecoveryJournal: " + e.getMessage());
+				}
+			}
+			try {
+				if (writer != null) {
+					writer.flush();
+				}
+			} catch (IOException e) {
+				System.err.println("RecoveryJournal: " + e.getMessage());
+			}
+			batch.forEach(t -> {
+				if (t.latch != null) {
+					t.latch.countDown();
+				}
+			});
+			batch.clear();
+
+			if (close) {
+				closeWriter();
+				return;
+			}
+		}
+	}
+
+	private void closeWriter() {
+		try {
+			if (writer != null) {
+				writer.close();
+			}
+		} catch (IOException e) {}
+		writer = null;
+	}
+
+	private void writeRecord(Entry entry) throws IOException {
+		if (writer == null) {
+			return;
+		}
+		writer.write(entry.type);
+		if (entry.state != null) {
+			writer.write(' ');
+			writeDelta(writer, lastState, entry.state);
+			lastState = entry.state;
+		} else if (entry.text != null) {
+			writer.write(' ');
+			writer.write(entry.text);
+		}
+		writer.write('\n');
+	}
+
+	/**
+	 * 新しいファイルに現在の状態を書き, 元のファイルと置き換えます.
+	 * 失敗した場合は, 完全な状態で残っているファイルへの追記を続けます.
+	 */
+	private void writeCompact(Entry entry) throws IOException {
+		boolean appending = (writer != null);
+		byte[] prevState = lastState;
+		boolean written = false;
+		closeWriter();
+		try {
+			try (Writer out = new OutputStreamWriter(new FileOutputStream(newFile), StandardCharsets.US_ASCII)) {
+				writer = out;
+				lastState = null;
+				writeRecord(new Entry('F', null, encodeFileName(fileName), null, null, null));
+				for (int i = 0; i < entry.undo.size(); i++) {
+					writeRecord(new Entry((i == 0) ? 'I' : 'A', entry.undo.get(i), null, null, null, null));
+				}
+				for (byte[] state : entry.redo) {
+					writeRecord(new Entry('D', state, null, null, null, null));
+				}
+				writeRecord(new Entry('O', null, entry.text, null, null, null));
+			} finally {
+				writer = null;
+			}
+			written = true;
+			file.delete();
+			if (!newFile.renameTo(file)) {
+				throw new IOException("rename failed: " + file);
+			}
+			writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.US_ASCII);
+		} catch (IOException e) {
+			resume(appending && file.exists(), written, prevState);
+			throw e;
+		}
+	}
+
+	/**
+	 * 圧縮に失敗した後, 完全な状態で残っているファイルへの追記を再開します.
+	 * どちらのファイルも使えない場合は, 次の圧縮まで記録できないことを出力します.
+	 * @param keepFile   元のファイルへの追記を続ける
+	 * @param written    新しいファイルを書き終えている
+	 * @param prevState  元のファイルに最後に書いた状態
+	 */
+	private void resume(boolean keepFile, boolean written, byte[] prevState) {
+		closeWriter();
+		File target = null;
+		if (keepFile) {
+			// 元のファイルが優先して読み込まれるため, 新しいファイルは不要.
+			newFile.delete();
+			lastState = prevState;
+			target = file;
+		} else if (written && newFile.exists()) {
+			target = newFile;
+		}
+		if (target != null) {
+			try {
+				writer = new OutputStreamWriter(new FileOutputStream(target, true), StandardCharsets.US_ASCII);
+				return;
+			} catch (IOException e) {
+				System.err.println("RecoveryJournal: " + e.getMessage());
+			}
+		}
+		System.err.println("RecoveryJournal: journal is not available until the next compaction.");
+	}
+
+	/**
+	 * 差分 "prefix suffix len data" を書きます. (len は書き込み途中で終了した行の検出用)
+	 */
+	static void writeDelta(Writer out, byte[] base, byte[] state) throws IOException {
+		int prefix = 0;
+		int suffix = 0;
+		if (base != null) {
+			int max = Math.min(base.length, state.length);
+			while ( (prefix < max) && (base[prefix] == state[prefix]) ) {
+				prefix++;
+			}
+			max -= prefix;
+			while ( (suffix < max) && (base[base.length-1-suffix] == state[state.length-1-suffix]) ) {
+				suffix++;
+			}
+		}
+		out.write(prefix + " " + suffix + " " + (state.length - prefix - suffix) + " ");
+		byte[] data = new byte[state.length - prefix - suffix];
+		System.arraycopy(state, prefix, data, 0, data.length);
+		out.write(Base64.getEncoder().encodeToString(data));
+	}
+
+	/**
+	 * 差分 {type, prefix, suffix, len, data} を適用します.
+	 */
+	static byte[] applyDelta(byte[] base, String[] s) {
+		int prefix = Integer.parseInt(s[1]);
+		int suffix = Integer.parseInt(s[2]);
+		int length = Integer.parseInt(s[3]);
+		byte[] data = Base64.getDecoder().decode(s[4]);
+		int baseLength = (base != null) ? base.length : 0;
+		if ( (prefix < 0) || (suffix < 0) || (prefix + suffix > baseLength) || (data.length != length) ) {
+			throw new IllegalArgumentException("invalid delta");
+		}
+		byte[] state = new byte[prefix + data.length + suffix];
+		if (prefix > 0) {
+			System.arraycopy(base, 0, state, 0, prefix);
+		}
+		System.arraycopy(data, 0, state, prefix, data.length);
+		if (suffix > 0) {
+			System.arraycopy(base, baseLength - suffix, state, prefix + data.length, suffix);
+		}
+		return state;
+	}
+}
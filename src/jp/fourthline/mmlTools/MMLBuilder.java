@@ -46,27 +46,81 @@ public final class MMLBuilder {
 		this.initOct = initOct;
 	}
 
+	/**
+	 * 関連パートのノートを参照するカーソル.
+	 * テンポの挿入位置は先頭から順に進むため, 前回の位置から探索を続けます. (戻る場合も正しく動作します)
+	 */
+	private static final class PartCursor {
+		private final List<MMLNoteEvent> noteList;
+		/** tickOffsetが前回の指定位置以下のノート数 */
+		private int index = 0;
+
+		private PartCursor(MMLEventList eventList) {
+			this.noteList = eventList.getMMLNoteEventList();
+		}
+
+		private void seek(long tickOffset) {
+			while ( (index < noteList.size()) && (noteList.get(index).getTickOffset() <= tickOffset) ) {
+				index++;
+			}
+			while ( (index > 0) && (noteList.get(index-1).getTickOffset() > tickOffset) ) {
+				index--;
+			}
+		}
+
+		/**
+		 * @see MMLEventList#searchOnTickOffset(long)
+		 */
+		private MMLNoteEvent searchOnTickOffset(long tickOffset) {
+			seek(tickOffset);
+			if (index > 0) {
+				MMLNoteEvent noteEvent = noteList.get(index-1);
+				if (tickOffset < noteEvent.getEndTick()) {
+					return noteEvent;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @see MMLEventList#searchPrevNoteOnTickOffset(long)
+		 */
+		private MMLNoteEvent searchPrevNoteOnTickOffset(long tickOffset) {
+			seek(tickOffset);
+			int i = index;
+			while ( (i > 0) && (noteList.get(i-1).getTickOffset() >= tickOffset) ) {
+				i--;
+			}
+			return (i > 0) ? noteList.get(i-1) : null;
+		}
+	}
+
+	/** 関連パートのカーソル (関連パートがない場合は空) */
+	private List<PartCursor> relationCursors = List.of();
+
+	private void setRelationPart(List<MMLEventList> relationPart) {
+		relationCursors = (relationPart == null) ? List.of() : relationPart.stream().map(PartCursor::new).toList();
+	}
+
 	/**
 	 * テンポ補正に使う文字を決定する.
-	 * @param relationPart     関連するパートの情報
-	 * @param noteEvent        判定するtickのノートイベント
+	 * @param tickOffset       補正文字の開始tick
+	 * @param endTick          補正文字の終了tick
 	 * @param currentOctave    現在のオクターブ
 	 * @return                 テンポ補正に使う文字
 	 * @throws MMLException
 	 */
-	private char makeTempoChar(List<MMLEventList> relationPart, MMLNoteEvent noteEvent, int currentOctave) throws MMLException {
+	private char makeTempoChar(int tickOffset, int endTick, int currentOctave) throws MMLException {
 		boolean[] f = { true, true, true, true, true, true, true };
 		// relationのパートのオフセット位置の情報をつかって、使用するabcdefg のどれを使うかを決める。
-		if (relationPart != null) {
-			for (var offset : List.of(noteEvent.getTickOffset(), noteEvent.getEndTick())) {
-				for (MMLEventList t : relationPart) {
-					MMLNoteEvent e = t.searchOnTickOffset(offset);
-					if (e != null) {
-						if (e.getOctave() == currentOctave) {
-							char c = e.toMMLString().toLowerCase().charAt(0);
-							int index = c - 'a';
-							f[index] = false;
-						}
+		for (int offset : new int[] { tickOffset, endTick }) {
+			for (PartCursor t : relationCursors) {
+				MMLNoteEvent e = t.searchOnTickOffset(offset);
+				if (e != null) {
+					if (e.getOctave() == currentOctave) {
+						char c = e.toMMLString().toLowerCase().charAt(0);
+						int index = c - 'a';
+						f[index] = false;
 					}
 				}
 			}
@@ -82,29 +136,36 @@ public final class MMLBuilder {
 		return 'c';
 	}
 
-	private MMLNoteEvent insertTempoMML(StringBuilder sb, MMLNoteEvent prevNoteEvent, MMLTempoEvent tempoEvent, boolean mabiTempo, List<MMLEventList> relationPart) {
+	private MMLNoteEvent insertTempoMML(StringBuilder sb, MMLNoteEvent prevNoteEvent, MMLTempoEvent tempoEvent, boolean mabiTempo) {
 		if (prevNoteEvent.getEndTick() < tempoEvent.getTickOffset()) {
+			MMLNoteEvent lastNoteEvent = prevNoteEvent;
 			int tickLength = tempoEvent.getTickOffset() - prevNoteEvent.getEndTick();
 			int tickOffset = prevNoteEvent.getEndTick();
 			int note = prevNoteEvent.getNote();
 			int currentOctave = prevNoteEvent.getOctave();
 			MMLTicks ticks = new MMLTicks("r", tickLength, false);
 			prevNoteEvent = new MMLNoteEvent(prevNoteEvent.getNote(), tickLength, tickOffset, prevNoteEvent.getVelocity());
+			String restText = "";
 			try {
-				sb.append(ticks.toMMLText());
+				restText = ticks.toMMLText();
+				sb.append(restText);
 			} catch (MMLException e) {
 				errList.add(new MMLExceptionList.Entry(prevNoteEvent, e));
 			}
-			if (mabiTempo && mmlVZeroTempo) {
+			if (mabiTempo && mmlVZeroTempo && !restText.isEmpty()) {
 				// 最後の1つのrだけを補正文字に置換する.
 				int lastIndex = sb.lastIndexOf("r");
-				sb.replace(lastIndex, lastIndex+1, "c");
-				var noteEvent = new MMLEventList(sb.toString()).getLastNote();
+				/*
+				 * 補正文字の位置は, 出力済みMMLの先頭 (startOffset) からの相対位置で判定する.
+				 * 出力済みMMLは休符で終わるため, 再解析せずに最後の休符の長さから求める.
+				 */
+				int endTick = tempoEvent.getTickOffset() - startOffset;
 				try {
-					char inChar = makeTempoChar(relationPart, noteEvent, currentOctave);
+					int lastTick = MMLTicks.getTick(restText.substring(restText.lastIndexOf('r')+1));
+					char inChar = makeTempoChar(endTick - lastTick, endTick, currentOctave);
 					sb.replace(lastIndex, lastIndex+1, (prevNoteEvent.getVelocity() != 0) ? "v0"+inChar : ""+inChar);
 				} catch (MMLException e) {
-					errList.add(new MMLExceptionList.Entry(noteEvent, e));
+					errList.add(new MMLExceptionList.Entry(lastNoteEvent, e));
 				}
 				prevNoteEvent = new MMLNoteEvent(note, tickLength, tickOffset, 0);
 			}
@@ -194,6 +255,7 @@ public final class MMLBuilder {
 			 {
 		long totalTick = totalTickRelationPart(relationPart);
 		LinkedList<MMLTempoEvent> localTempoList = makeLocalTempoList(totalTick);
+		setRelationPart(relationPart);
 		StringBuilder sb = new StringBuilder(STRING_BUILDER_SIZE);
 
 		// initial note: octave 4, tick 0, offset 0, velocity 8
@@ -203,7 +265,7 @@ public final class MMLBuilder {
 			while ( (!localTempoList.isEmpty()) && (localTempoList.getFirst().getTickOffset() <= noteEvent.getTickOffset()) ) {
 				if (withTempo) {
 					// tempo挿入 (rrrT***N の処理)
-					prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.getFirst(), mabiTempo, relationPart);
+					prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.getFirst(), mabiTempo);
 				}
 				localTempoList.removeFirst();
 			}
@@ -221,7 +283,7 @@ public final class MMLBuilder {
 			}
 			if (withTempo) {
 				// tempo挿入 (rrrT***N の処理)
-				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, tempo, mabiTempo, relationPart);
+				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, tempo, mabiTempo);
 			}
 			localTempoList.removeFirst();
 		}
@@ -233,7 +295,7 @@ public final class MMLBuilder {
 	}
 
 	private int insertNoteWithTempoMusicQ(StringBuilder sb, List<MMLTempoEvent> localTempoList, int tempoIndex,
-			MMLNoteEvent prevNoteEvent, MMLNoteEvent noteEvent, List<MMLEventList> relationPart) {
+			MMLNoteEvent prevNoteEvent, MMLNoteEvent noteEvent) {
 		MMLNoteEvent divNoteEvent = noteEvent.clone();
 		int index = tempoIndex;
 
@@ -247,7 +309,7 @@ public final class MMLBuilder {
 				break;
 			}
 			// 他の関連パート中に適切な挿入位置があるかどうかを探す.
-			if (searchRelationPartCanInsertTempo(relationPart, tickOffset)) {
+			if (searchRelationPartCanInsertTempo(tickOffset)) {
 				index++;
 				continue;
 			}
@@ -284,17 +346,14 @@ public final class MMLBuilder {
 
 	/**
 	 * 関連パートにテンポ挿入できる箇所があるかどうかを判定する
-	 * @param relationPart
 	 * @param tickOffset
 	 * @return
 	 */
-	private static boolean searchRelationPartCanInsertTempo(List<MMLEventList> relationPart, long tickOffset) {
-		if (relationPart != null) {
-			for (MMLEventList t : relationPart) {
-				MMLNoteEvent e1 = t.searchOnTickOffset(tickOffset);
-				if ( (e1 == null) || (e1.getTickOffset() == tickOffset) ) {
-					return true;
-				}
+	private boolean searchRelationPartCanInsertTempo(long tickOffset) {
+		for (PartCursor t : relationCursors) {
+			MMLNoteEvent e1 = t.searchOnTickOffset(tickOffset);
+			if ( (e1 == null) || (e1.getTickOffset() == tickOffset) ) {
+				return true;
 			}
 		}
 
@@ -302,19 +361,16 @@ public final class MMLBuilder {
 	}
 	/**
 	 * 関連パートに接触ノートがあるかどうかを判定する
-	 * @param relationPart
 	 * @param tickOffset
 	 * @return
 	 */
-	private static boolean searchRelationPartOnTick(List<MMLEventList> relationPart, long tickOffset) {
-		if (relationPart != null) {
-			for (MMLEventList t : relationPart) {
-				MMLNoteEvent e1 = t.searchOnTickOffset(tickOffset);
-				MMLNoteEvent e2 = t.searchPrevNoteOnTickOffset(tickOffset);
-				if ( ((e1 != null) && (e1.getTickOffset() == tickOffset)) ||
-						((e2 != null) && (e2.getEndTick() == tickOffset)) ) {
-					return true;
-				}
+	private boolean searchRelationPartOnTick(long tickOffset) {
+		for (PartCursor t : relationCursors) {
+			MMLNoteEvent e1 = t.searchOnTickOffset(tickOffset);
+			MMLNoteEvent e2 = t.searchPrevNoteOnTickOffset(tickOffset);
+			if ( ((e1 != null) && (e1.getTickOffset() == tickOffset)) ||
+					((e2 != null) && (e2.getEndTick() == tickOffset)) ) {
+				return true;
 			}
 		}
 
@@ -347,6 +403,7 @@ public final class MMLBuilder {
 	 */
 	public String toMMLStringMusicQ(List<MMLTempoEvent> localTempoList, List<MMLEventList> relationPart) throws MMLExceptionList {
 		long totalTick = totalTickRelationPart(relationPart);
+		setRelationPart(relationPart);
 		StringBuilder sb = new StringBuilder(STRING_BUILDER_SIZE);
 		int tempoIndex = 0;
 		while (localTempoList.size() > tempoIndex + 1) {
@@ -362,11 +419,11 @@ public final class MMLBuilder {
 		for (MMLNoteEvent noteEvent : eventList.getMMLNoteEventList()) {
 			// テンポのMML挿入判定
 			while ( (localTempoList.size() > tempoIndex) && (localTempoList.get(tempoIndex).getTickOffset() <= noteEvent.getTickOffset()) ) {
-				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.get(tempoIndex), true, relationPart);
+				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.get(tempoIndex), true);
 				localTempoList.remove(tempoIndex);
 			}
 
-			tempoIndex = insertNoteWithTempoMusicQ(sb, localTempoList, tempoIndex, prevNoteEvent, noteEvent, relationPart);
+			tempoIndex = insertNoteWithTempoMusicQ(sb, localTempoList, tempoIndex, prevNoteEvent, noteEvent);
 			prevNoteEvent = noteEvent;
 		}
 
@@ -378,8 +435,8 @@ public final class MMLBuilder {
 				break;
 			}
 			// 関連パートに接触ノートがある場合は自パートにテンポ挿入しない
-			if (!searchRelationPartOnTick(relationPart, tempoTick)) {
-				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.get(tempoIndex), true, relationPart);
+			if (!searchRelationPartOnTick(tempoTick)) {
+				prevNoteEvent = insertTempoMML(sb, prevNoteEvent, localTempoList.get(tempoIndex), true);
 				localTempoList.remove(tempoIndex);
 			} else {
 				tempoIndex++;
@@ -7,7 +7,11 @@ package jp.fourthline.mmlTools;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import jp.fourthline.mmlTools.core.MMLTicks;
 import jp.fourthline.mmlTools.parser.MMLEventParser;
@@ -134,15 +138,14 @@ public final class MMLEventList implements Serializable, Cloneable {
 	public int[] indexOfMMLString(long tickOffset) {
 		int start = 0;
 		for (MMLNoteEvent noteEvent : noteList) {
-			int[] index = noteEvent.getIndexOfMMLString();
 			if (noteEvent.getTickOffset() <= tickOffset) {
 				if (tickOffset < noteEvent.getEndTick()) {
-					return index;
+					return noteEvent.getIndexOfMMLString();
 				}
 			} else {
-				return new int[] { start, index[0] };
+				return new int[] { start, noteEvent.getIndexOfMMLStringStart() };
 			}
-			start = index[1];
+			start = noteEvent.getIndexOfMMLStringEnd();
 		}
 		return new int[] { start, start };
 	}
@@ -200,6 +203,88 @@ public final class MMLEventList implements Serializable, Cloneable {
 		}
 	}
 
+	/**
+	 * tickOffset順に並んだノートイベントをまとめて追加します.
+	 * addMMLNoteEventを順に呼び出した場合と同じ結果になるように, 重なるノートの調節・削除を1回の走査で行います.
+	 * 追加するリストがtickOffset順でない場合, または既存のリストに重なりがある場合は1つずつ追加します.
+	 * @param addList 追加するノートイベント
+	 */
+	public void addMMLNoteEvents(List<MMLNoteEvent> addList) {
+		if (!isSortedList(addList, false) || !isSortedList(noteList, true)) {
+			addList.forEach(this::addMMLNoteEvent);
+			return;
+		}
+
+		int size = noteList.size();
+		ArrayList<MMLNoteEvent> newList = new ArrayList<>(size + addList.size());
+		int j = 0;
+		for (MMLNoteEvent addNoteEvent : addList) {
+			if ((addNoteEvent.getNote() < -1) || (addNoteEvent.getTick() <= 0) || (addNoteEvent.getEndTick() <= 0)) {
+				continue;
+			}
+			int offset = addNoteEvent.getTickOffset();
+			if (offset < 0) {
+				addNoteEvent.setTick( (addNoteEvent.getTick() + offset) );
+				addNoteEvent.setTickOffset(0);
+				offset = 0;
+			}
+
+			// 追加するノートより前から始まるノートを移す.
+			while ( (j < size) && (noteList.get(j).getTickOffset() <= offset) ) {
+				newList.add(noteList.get(j++));
+			}
+
+			// 追加したノートイベントに重なる前のノートを調節します.
+			int i = newList.size();
+			while ( (i > 0) && (newList.get(i-1).getEndTick() >= offset) ) {
+				i--;
+			}
+			if (i < newList.size()) {
+				MMLNoteEvent noteEvent = newList.get(i);
+				int tick = noteEvent.getTick() - (noteEvent.getEndTick() - offset);
+				if (tick != 0) {
+					noteEvent.setTick(tick);
+					i++;
+				}
+				// 調節したノートより後ろは, 追加するノートに重なっている.
+				newList.subList(i, newList.size()).clear();
+			}
+
+			// ノートイベントを追加します.
+			newList.add(addNoteEvent);
+
+			// 追加したノートイベントに重なっている後続のノートを削除します.
+			while ( (j < size) && (noteList.get(j).getTickOffset() < addNoteEvent.getEndTick()) ) {
+				j++;
+			}
+		}
+		while (j < size) {
+			newList.add(noteList.get(j++));
+		}
+
+		noteList.clear();
+		noteList.addAll(newList);
+	}
+
+	/**
+	 * tickOffset順に並んでいるかを判定します.
+	 * @param list
+	 * @param noOverlap trueの場合はノートが重なっていないことも判定します.
+	 */
+	private static boolean isSortedList(List<MMLNoteEvent> list, boolean noOverlap) {
+		MMLNoteEvent prev = null;
+		for (MMLNoteEvent noteEvent : list) {
+			if (prev != null) {
+				int tick = noOverlap ? prev.getEndTick() : prev.getTickOffset();
+				if (noteEvent.getTickOffset() < tick) {
+					return false;
+				}
+			}
+			prev = noteEvent;
+		}
+		return true;
+	}
+
 	/**
 	 * リスト中のノートイベントに重複しているかを判定します.
 	 * @param noteEvent  判定するノートイベント.
@@ -238,6 +323,36 @@ public final class MMLEventList implements Serializable, Cloneable {
 		noteList.remove(deleteItem);
 	}
 
+	/**
+	 * 指定のノートイベントをまとめて削除します.
+	 * リスト中の同一オブジェクトを1回の走査で削除し, 見つからなかったものは deleteMMLEvent と同様に削除します.
+	 * @param deleteList
+	 */
+	public void deleteMMLEvents(Collection<? extends MMLEvent> deleteList) {
+		Set<MMLEvent> deleteSet = Collections.newSetFromMap(new IdentityHashMap<>());
+		deleteSet.addAll(deleteList);
+		noteList.removeIf(deleteSet::remove);
+		deleteSet.forEach(this::deleteMMLEvent);
+	}
+
+	/**
+	 * 指定範囲 (startTick以上, endTick以下) に含まれるノートイベントを取り出し, リストから削除します.
+	 * @param startTick
+	 * @param endTick
+	 * @return 取り出したノートイベント (tickOffset順)
+	 */
+	public List<MMLNoteEvent> extractMMLNoteEvents(int startTick, int endTick) {
+		List<MMLNoteEvent> list = new ArrayList<>();
+		noteList.removeIf(noteEvent -> {
+			if ( (noteEvent.getTickOffset() >= startTick) && (noteEvent.getEndTick() <= endTick) ) {
+				list.add(noteEvent);
+				return true;
+			}
+			return false;
+		});
+		return list;
+	}
+
 	/**
 	 * 指定されたノートに音量コマンドを設定する.
 	 * 後続の同音量のノートも更新する.
@@ -278,6 +393,25 @@ public final class MMLEventList implements Serializable, Cloneable {
 		return tempoList.toString() + noteList.toString();
 	}
 
+	/**
+	 * ノートを複製し, 指定したテンポリストを共有するイベントリストを作成します. (スナップショット用)
+	 * @param globalTempoList
+	 * @return
+	 */
+	MMLEventList snapshot(List<MMLTempoEvent> globalTempoList) {
+		try {
+			MMLEventList obj = (MMLEventList) super.clone();
+			obj.noteList = new ArrayList<>(noteList.size());
+			for (MMLNoteEvent note : noteList) {
+				obj.noteList.add(note.clone());
+			}
+			obj.tempoList = globalTempoList;
+			return obj;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e.getMessage());
+		}
+	}
+
 	@Override
 	public MMLEventList clone() {
 		try {
@@ -315,50 +449,24 @@ public final class MMLEventList implements Serializable, Cloneable {
 	}
 
 	public void swap(MMLEventList list2, int startTick, int endTick) {
-		List<MMLNoteEvent> tmp1 = new ArrayList<>();
-		List<MMLNoteEvent> tmp2 = new ArrayList<>();
-		for (MMLNoteEvent noteEvent : noteList) {
-			if ( (noteEvent.getTickOffset() >= startTick) && (noteEvent.getEndTick() <= endTick) ) {
-				tmp1.add(noteEvent);
-			}
-		}
-		for (MMLNoteEvent noteEvent : tmp1) {
-			noteList.remove(noteEvent);
-		}
-
-		for (MMLNoteEvent noteEvent : list2.getMMLNoteEventList()) {
-			if ( (noteEvent.getTickOffset() >= startTick) && (noteEvent.getEndTick() <= endTick) ) {
-				tmp2.add(noteEvent);
-			}
-		}
-		for (MMLNoteEvent noteEvent : tmp2) {
-			list2.getMMLNoteEventList().remove(noteEvent);
-			addMMLNoteEvent(noteEvent);
-		}
-		for (MMLNoteEvent noteEvent : tmp1) {
-			list2.addMMLNoteEvent(noteEvent);
-		}
+		List<MMLNoteEvent> tmp1 = extractMMLNoteEvents(startTick, endTick);
+		List<MMLNoteEvent> tmp2 = list2.extractMMLNoteEvents(startTick, endTick);
+		addMMLNoteEvents(tmp2);
+		list2.addMMLNoteEvents(tmp1);
 	}
 
 	public void move(MMLEventList list2, int startTick, int endTick) {
-		List<MMLNoteEvent> tmp1 = new ArrayList<>();
-		for (MMLNoteEvent noteEvent : noteList) {
-			if ( (noteEvent.getTickOffset() >= startTick) && (noteEvent.getEndTick() <= endTick) ) {
-				tmp1.add(noteEvent);
-			}
-		}
-		for (MMLNoteEvent noteEvent : tmp1) {
-			deleteMMLEvent(noteEvent);
-			list2.addMMLNoteEvent(noteEvent);
-		}
+		list2.addMMLNoteEvents(extractMMLNoteEvents(startTick, endTick));
 	}
 
 	public void copy(MMLEventList list2, int startTick, int endTick) {
+		List<MMLNoteEvent> tmp1 = new ArrayList<>();
 		for (MMLNoteEvent noteEvent : noteList) {
 			if ( (noteEvent.getTickOffset() >= startTick) && (noteEvent.getEndTick() <= endTick) ) {
-				list2.addMMLNoteEvent( noteEvent.clone() );
+				tmp1.add(noteEvent.clone());
 			}
 		}
+		list2.addMMLNoteEvents(tmp1);
 	}
 
 	/**
@@ -383,6 +491,18 @@ public final class MMLEventList implements Serializable, Cloneable {
 		}
 	}
 
+	/**
+	 * ノートリストの内容の64bitフィンガープリント. (各ノートの contentHash の和)
+	 * @return
+	 */
+	public long fingerprint() {
+		long fp = 0;
+		for (MMLNoteEvent noteEvent : noteList) {
+			fp += noteEvent.contentHash();
+		}
+		return fp;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof MMLEventList)) {
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jp.fourthline.mmlTools.core.TuningBase;
+
+/**
+ * ノート情報をパート単位で int配列に格納します. (note, tick, tickOffset, velocity, flags)
+ * MMLNoteEventのオブジェクトを作らずに, 全ノートの走査や一時的なノートリストの構築を行うために使用します.
+ */
+public final class MMLNoteColumns {
+	private static final int INIT_CAPACITY = 64;
+
+	private static final int FLAG_MUTE = 0x1;
+	private static final int FLAG_TUNING_SHIFT = 8;
+	private static final TuningBase[] TUNING_BASE = TuningBase.values();
+
+	private int size = 0;
+	private int[] note;
+	private int[] tick;
+	private int[] tickOffset;
+	private int[] velocity;
+	private int[] flags;
+
+	public MMLNoteColumns() {
+		this(INIT_CAPACITY);
+	}
+
+	public MMLNoteColumns(int capacity) {
+		capacity = Math.max(capacity, 1);
+		note = new int[capacity];
+		tick = new int[capacity];
+		tickOffset = new int[capacity];
+		velocity = new int[capacity];
+		flags = new int[capacity];
+	}
+
+	/**
+	 * ノートリストから作成します.
+	 * @param noteList
+	 * @return
+	 */
+	public static MMLNoteColumns of(List<MMLNoteEvent> noteList) {
+		MMLNoteColumns columns = new MMLNoteColumns(noteList.size());
+		for (MMLNoteEvent noteEvent : noteList) {
+			columns.add(noteEvent);
+		}
+		return columns;
+	}
+
+	private static int makeFlags(MMLNoteEvent noteEvent) {
+		int f = noteEvent.isMute() ? FLAG_MUTE : 0;
+		if (noteEvent.isTuningNote()) {
+			f |= (noteEvent.getTuningBase().ordinal() + 1) << FLAG_TUNING_SHIFT;
+		}
+		return f;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > note.length) {
+			int newCapacity = Math.max(capacity, note.length * 2);
+			note = Arrays.copyOf(note, newCapacity);
+			tick = Arrays.copyOf(tick, newCapacity);
+			tickOffset = Arrays.copyOf(tickOffset, newCapacity);
+			velocity = Arrays.copyOf(velocity, newCapacity);
+			flags = Arrays.copyOf(flags, newCapacity);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void add(MMLNoteEvent noteEvent) {
+		insert(size, noteEvent);
+	}
+
+	/**
+	 * 指定位置にノートを挿入します.
+	 * @param index
+	 * @param noteEvent
+	 */
+	public void insert(int index, MMLNoteEvent noteEvent) {
+		insert(index, noteEvent.getNote(), noteEvent.getTick(), noteEvent.getTickOffset(), noteEvent.getVelocity(), makeFlags(noteEvent));
+	}
+
+	/**
+	 * 位置と長さを変更したノートを指定位置に挿入します.
+	 * @param index
+	 * @param noteEvent  note, velocity, ミュート, 調律の情報
+	 * @param aTickOffset
+	 * @param aTick
+	 */
+	public void insert(int index, MMLNoteEvent noteEvent, int aTickOffset, int aTick) {
+		insert(index, noteEvent.getNote(), aTick, aTickOffset, noteEvent.getVelocity(), makeFlags(noteEvent));
+	}
+
+	private void insert(int index, int aNote, int aTick, int aTickOffset, int aVelocity, int aFlags) {
+		if ( (index < 0) || (index > size) ) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		ensureCapacity(size + 1);
+		int moveLength = size - index;
+		if (moveLength > 0) {
+			System.arraycopy(note, index, note, index+1, moveLength);
+			System.arraycopy(tick, index, tick, index+1, moveLength);
+			System.arraycopy(tickOffset, index, tickOffset, index+1, moveLength);
+			System.arraycopy(velocity, index, velocity, index+1, moveLength);
+			System.arraycopy(flags, index, flags, index+1, moveLength);
+		}
+		note[index] = aNote;
+		tick[index] = aTick;
+		tickOffset[index] = aTickOffset;
+		velocity[index] = aVelocity;
+		flags[index] = aFlags;
+		size++;
+	}
+
+	public void remove(int index) {
+		checkIndex(index);
+		int moveLength = size - index - 1;
+		if (moveLength > 0) {
+			System.arraycopy(note, index+1, note, index, moveLength);
+			System.arraycopy(tick, index+1, tick, index, moveLength);
+			System.arraycopy(tickOffset, index+1, tickOffset, index, moveLength);
+			System.arraycopy(velocity, index+1, velocity, index, moveLength);
+			System.arraycopy(flags, index+1, flags, index, moveLength);
+		}
+		size--;
+	}
+
+	private void checkIndex(int index) {
+		if ( (index < 0) || (index >= size) ) {
+			throw new IndexOutOfBoundsException(index);
+		}
+	}
+
+	public int getNote(int index) {
+		checkIndex(index);
+		return note[index];
+	}
+
+	public int getTick(int index) {
+		checkIndex(index);
+		return tick[index];
+	}
+
+	public void setTick(int index, int value) {
+		checkIndex(index);
+		tick[index] = value;
+	}
+
+	public int getTickOffset(int index) {
+		checkIndex(index);
+		return tickOffset[index];
+	}
+
+	public int getEndTick(int index) {
+		checkIndex(index);
+		return tickOffset[index] + tick[index];
+	}
+
+	public int getVelocity(int index) {
+		checkIndex(index);
+		return velocity[index];
+	}
+
+	public boolean isMute(int index) {
+		checkIndex(index);
+		return (flags[index] & FLAG_MUTE) != 0;
+	}
+
+	public TuningBase getTuningBase(int index) {
+		checkIndex(index);
+		int t = flags[index] >>> FLAG_TUNING_SHIFT;
+		return (t == 0) ? null : TUNING_BASE[t-1];
+	}
+
+	/**
+	 * tickOffsetがtargetTick以上になる最初のIndexを取得します. (tickOffset順に並んでいること)
+	 * @param targetTick
+	 * @return 該当がなければ size()
+	 */
+	public int lowerBound(int targetTick) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (tickOffset[mid] < targetTick) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * tickOffsetがtargetTickより大きくなる最初のIndexを取得します. (tickOffset順に並んでいること)
+	 * @param targetTick
+	 * @return 該当がなければ size()
+	 */
+	public int upperBound(int targetTick) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (tickOffset[mid] <= targetTick) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * 指定位置のノートから MMLNoteEvent を作成します.
+	 * @param index
+	 * @return
+	 */
+	public MMLNoteEvent toNoteEvent(int index) {
+		checkIndex(index);
+		MMLNoteEvent noteEvent = new MMLNoteEvent(note[index], tick[index], tickOffset[index], velocity[index]);
+		noteEvent.setMute(isMute(index));
+		noteEvent.setTuningNote(getTuningBase(index));
+		return noteEvent;
+	}
+
+	public List<MMLNoteEvent> toNoteEventList() {
+		ArrayList<MMLNoteEvent> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(toNoteEvent(i));
+		}
+		return list;
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * 先頭から順にノートを参照するカーソル.
+	 * <pre>
+	 * var cursor = columns.cursor();
+	 * while (cursor.next()) {
+	 *     cursor.getNote();
+	 * }
+	 * </pre>
+	 */
+	public final class Cursor {
+		private int index = -1;
+
+		private Cursor() {}
+
+		public boolean next() {
+			if (index < size) {
+				index++;
+			}
+			return index < size;
+		}
+
+		/**
+		 * 指定したtickOffset以上の最初のノートの手前に移動します. 次の next() でそのノートを参照します.
+		 * @param targetTick
+		 */
+		public void seek(int targetTick) {
+			index = lowerBound(targetTick) - 1;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getNote() {
+			return note[index];
+		}
+
+		public int getTick() {
+			return tick[index];
+		}
+
+		public int getTickOffset() {
+			return tickOffset[index];
+		}
+
+		public int getEndTick() {
+			return tickOffset[index] + tick[index];
+		}
+
+		public int getVelocity() {
+			return velocity[index];
+		}
+
+		public boolean isMute() {
+			return (flags[index] & FLAG_MUTE) != 0;
+		}
+
+		public TuningBase getTuningBase() {
+			return MMLNoteColumns.this.getTuningBase(index);
+		}
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Objects;
 import jp.fourthline.mmlTools.core.IllegalTickOffsetException;
 import jp.fourthline.mmlTools.core.MMLTicks;
 import jp.fourthline.mmlTools.core.TuningBase;
+import jp.fourthline.mmlTools.core.ContentHash;
 import jp.fourthline.mmlTools.core.MMLException;
 
 public final class MMLNoteEvent extends MMLEvent implements Cloneable {
@@ -20,7 +21,8 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 	private int tick;
 	private TuningBase tuningBase = null;
 	private int velocity;
-	private int[] indexOfMMLString = null; // { startIndex, endIndex }
+	private int indexOfMMLStringStart = -1;
+	private int indexOfMMLStringEnd = -1;
 
 	private boolean mute = false; // 一時ミュート
 
@@ -91,12 +93,37 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 		setVelocity(velocity + (inc ? 1 : -1));
 	}
 
+	/**
+	 * parsed-MML文字列に対するIndexを取得します.
+	 * @return { startIndex, endIndex }, 未設定の場合は null
+	 */
 	public int[] getIndexOfMMLString() {
-		return indexOfMMLString;
+		if (indexOfMMLStringStart < 0) {
+			return null;
+		}
+		return new int[] { indexOfMMLStringStart, indexOfMMLStringEnd };
+	}
+
+	public int getIndexOfMMLStringStart() {
+		return indexOfMMLStringStart;
+	}
+
+	public int getIndexOfMMLStringEnd() {
+		return indexOfMMLStringEnd;
 	}
 
 	public void setIndexOfMMLString(int[] index) {
-		this.indexOfMMLString = index;
+		if (index == null) {
+			this.indexOfMMLStringStart = -1;
+			this.indexOfMMLStringEnd = -1;
+		} else {
+			this.indexOfMMLStringStart = index[0];
+			this.indexOfMMLStringEnd = index[1];
+		}
+	}
+
+	public void setIndexOfMMLStringEnd(int endIndex) {
+		this.indexOfMMLStringEnd = endIndex;
 	}
 
 	public boolean isMute() {
@@ -124,10 +151,12 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 
 	@Override
 	public String toMMLString() throws MMLException {
-		return toMMLString(0);
+		StringBuilder sb = new StringBuilder();
+		appendMMLString(sb, 0);
+		return sb.toString();
 	}
 
-	private String toMMLString(int prevEndTickOffset) throws MMLException {
+	private void appendMMLString(StringBuilder sb, int prevEndTickOffset) throws MMLException {
 		if ( (note < -1) || (note >= 108) ) {
 			throw MMLException.createIllegalNote(note);
 		}
@@ -138,9 +167,9 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 		}
 		MMLTicks mmlTick = new MMLTicks(noteName, actTick);
 		if (tuningBase != null) {
-			return mmlTick.toMMLTextByBase(tuningBase);
+			sb.append( mmlTick.toMMLTextByBase(tuningBase) );
 		} else {
-			return mmlTick.toMMLText();
+			mmlTick.appendMMLText(sb);
 		}
 	}
 
@@ -151,7 +180,7 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 		StringBuilder sb = new StringBuilder();
 
 		// 前のノートとの差を見て、休符を挿入する.
-		sb.append( createMMLSpaceString(prevNoteEvent) );
+		appendMMLSpaceString(sb, prevNoteEvent);
 
 		// 前のノートとのオクターブ差分をみて、オクターブ変化を挿入する.
 		sb.append( changeOctaveinMMLString(prevNoteEvent.getOctave()) );
@@ -161,24 +190,22 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 			sb.append("v").append(velocity);
 		}
 
-		sb.append( toMMLString(prevNoteEvent.getEndTick()) );
+		appendMMLString(sb, prevNoteEvent.getEndTick());
 
 		return sb.toString();
 	}
 
 	/**
 	 * 前のNoteEvent間にある休符のMML文字列を生成します.
+	 * @param sb
 	 * @param prevNoteEvent
-	 * @return
 	 */
-	private String createMMLSpaceString(MMLNoteEvent prevNoteEvent) throws MMLException {
+	private void appendMMLSpaceString(StringBuilder sb, MMLNoteEvent prevNoteEvent) throws MMLException {
 		int noteSpaceTick = getTickOffset() - prevNoteEvent.getEndTick();
 		if ( noteSpaceTick > 0 ) {
 			MMLTicks mmlTick = new MMLTicks("r", noteSpaceTick, false);
-			return mmlTick.toMMLText();
+			mmlTick.appendMMLText(sb);
 		}
-
-		return "";
 	}
 
 	/**
@@ -216,6 +243,19 @@ public final class MMLNoteEvent extends MMLEvent implements Cloneable {
 		}
 	}
 
+	/**
+	 * ノート内容 (note, tick, tickOffset, velocity, 調律) の64bitハッシュ値. equalsで等しいノートは同じ値になります.
+	 * @return
+	 */
+	public long contentHash() {
+		long h = getTickOffset();
+		h = ContentHash.mix(h, tick);
+		h = ContentHash.mix(h, note);
+		h = ContentHash.mix(h, velocity);
+		h = ContentHash.mix(h, (tuningBase == null) ? 0 : tuningBase.ordinal() + 1);
+		return ContentHash.finish(h);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof MMLNoteEvent)) {
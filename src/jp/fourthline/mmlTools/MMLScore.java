@@ -12,8 +12,12 @@ import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Vector;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import jp.fourthline.mabiicco.midi.MabiDLS;
+import jp.fourthline.mmlTools.core.ContentHash;
 import jp.fourthline.mmlTools.core.MMLTicks;
 import jp.fourthline.mmlTools.core.MMLException;
 import jp.fourthline.mmlTools.parser.MMSFile;
@@ -40,6 +44,7 @@ public final class MMLScore implements Cloneable {
 	private String author = "";
 	private int numTime = 4;
 	private int baseTime = 4;
+	private volatile MeasureGrid measureGrid = null;
 
 	private final Vector<MMLVerifyException> verifyErrStack = new Vector<>();
 	private final Vector<MMLExceptionList.Entry> mmlErrStack = new Vector<>();
@@ -144,6 +149,24 @@ public final class MMLScore implements Cloneable {
 		return timeSignatureList;
 	}
 
+	/**
+	 * 小節・拍の位置の索引を取得します.
+	 * 拍子記号リストを直接変更した場合も, 要素数が変わっていれば作り直します.
+	 * @return
+	 */
+	public MeasureGrid getMeasureGrid() {
+		MeasureGrid grid = measureGrid;
+		if ( (grid == null) || (!grid.isValid(this)) ) {
+			grid = new MeasureGrid(this);
+			measureGrid = grid;
+		}
+		return grid;
+	}
+
+	void invalidateMeasureGrid() {
+		measureGrid = null;
+	}
+
 	public void setTitle(String title) {
 		this.title = title;
 	}
@@ -305,6 +328,34 @@ public final class MMLScore implements Cloneable {
 		return ostream.toByteArray();
 	}
 
+	/**
+	 * getObjectState() で保存される内容の64bitフィンガープリント. 変更検出に使用します.
+	 * 各トラックのMML文字列のハッシュ値は文字列の設定時に計算済みのため, シリアライズは行いません.
+	 * @return
+	 */
+	public long fingerprint() {
+		long h = ContentHash.INIT;
+		h = ContentHash.mix(h, title);
+		h = ContentHash.mix(h, author);
+		h = ContentHash.mix(h, numTime);
+		h = ContentHash.mix(h, baseTime);
+		h = mixEventList(h, globalTempoList);
+		for (MMLTrack track : trackList) {
+			h = ContentHash.mix(h, track.fingerprint());
+		}
+		h = mixEventList(h, markerList);
+		h = mixEventList(h, timeSignatureList);
+		return ContentHash.finish(h);
+	}
+
+	private static long mixEventList(long h, List<? extends MMLEvent> list) {
+		h = ContentHash.mix(h, list.size());
+		for (MMLEvent event : list) {
+			h = ContentHash.mix(h, event.toString());
+		}
+		return h;
+	}
+
 	public void putObjectState(byte[] objState) {
 		try {
 			ByteArrayInputStream bis = new ByteArrayInputStream(objState);
@@ -335,16 +386,44 @@ public final class MMLScore implements Cloneable {
 	 */
 	public MMLScore toGeneratedScore(boolean force) {
 		try {
+			byte[] state = this.getObjectState();
 			MMLScore score = new MMLScore();
-			score.putObjectState( this.getObjectState() );
+			score.putObjectState(state);
 			score.generateAll();
-			if ( force || Arrays.equals(this.getObjectState(), score.getObjectState()) ) {
+			// フィンガープリントが一致した場合も, 衝突の可能性があるため保存内容を比較する.
+			if ( force || ( (this.fingerprint() == score.fingerprint()) && Arrays.equals(state, score.getObjectState()) ) ) {
 				return score;
 			}
 		} catch (MMLExceptionList | MMLVerifyException e) {}
 		return this;
 	}
 
+	/**
+	 * トラックごとにgenerateし, generateしてもMMLが変わらないトラックを通知します.
+	 * 指定したトラックを先に処理し, 残りのトラックは並列に処理します.
+	 * このスコアは変更されるため, snapshot()したスコアに対して使用します.
+	 * @param firstIndex  先に処理するトラック
+	 * @param consumer    トラックのindexと generate済みのトラック
+	 */
+	public void generateEachTrack(int firstIndex, BiConsumer<Integer, MMLTrack> consumer) {
+		List<MMLTrack> tracks = new ArrayList<>(trackList);
+		IntConsumer generateTrack = i -> {
+			MMLTrack track = tracks.get(i);
+			String mml = track.getOriginalMML();
+			try {
+				track.setFix64(fix64Tempo);
+				track.generate();
+				if (mml.equals(track.getOriginalMML())) {
+					consumer.accept(i, track);
+				}
+			} catch (MMLExceptionList | MMLVerifyException e) {}
+		};
+		if ( (firstIndex >= 0) && (firstIndex < tracks.size()) ) {
+			generateTrack.accept(firstIndex);
+		}
+		IntStream.range(0, tracks.size()).parallel().filter(i -> i != firstIndex).forEach(generateTrack);
+	}
+
 	public MMLScore generateAll() throws MMLExceptionList, MMLVerifyException {
 		verifyErrStack.clear();
 		mmlErrStack.clear();
@@ -460,6 +539,27 @@ public final class MMLScore implements Cloneable {
 		return mmlErrStack;
 	}
 
+	/**
+	 * 現在の内容を複製したスコアを作成します.
+	 * clone() と異なり, MMLの出力と再Parseを行わずにノートと設定を複製します.
+	 * 編集するスレッド (EDT) で作成し, 再生用シーケンスの作成やバックグラウンドのgenerateなど
+	 * 別スレッドからの読み込みに使用します. 作成後は元のスコアの編集の影響を受けません.
+	 * @return
+	 */
+	public synchronized MMLScore snapshot() {
+		MMLScore score = new MMLScore();
+		score.title = title;
+		score.author = author;
+		score.numTime = numTime;
+		score.baseTime = baseTime;
+		score.userViewMeasure = userViewMeasure;
+		globalTempoList.forEach(t -> score.globalTempoList.add(t.clone()));
+		trackList.forEach(t -> score.trackList.add(t.snapshot(score.globalTempoList)));
+		markerList.forEach(t -> score.markerList.add(new Marker(t.getName(), t.getTickOffset())));
+		timeSignatureList.forEach(t -> score.timeSignatureList.add(t.copy()));
+		return score;
+	}
+
 	@Override
 	public MMLScore clone() {
 		var obj = this.getObjectState();
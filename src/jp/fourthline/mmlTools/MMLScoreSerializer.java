@@ -10,11 +10,15 @@ import jp.fourthline.mmlTools.parser.MMLParseException;
 import jp.fourthline.mmlTools.parser.SectionContents;
 import jp.fourthline.mmlTools.parser.TextParser;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public final class MMLScoreSerializer extends AbstractMMLParser {
 
@@ -53,6 +57,14 @@ public final class MMLScoreSerializer extends AbstractMMLParser {
 	private final TextParser parser;
 	private final ParseCache cache = new ParseCache();
 
+	/** MML@ - ; が複数行にまたがる場合の連結用 */
+	private final StringBuilder lineBuffer = new StringBuilder();
+	private boolean inMML = false;
+
+	/** MMLの解析前のトラックとMML (ファイルの順) */
+	private final List<MMLTrack> pendingTracks = new ArrayList<>();
+	private final List<String> pendingMML = new ArrayList<>();
+
 	public MMLScoreSerializer(MMLScore score) {
 		this.score = score;
 
@@ -62,9 +74,11 @@ public final class MMLScoreSerializer extends AbstractMMLParser {
 				.pattern(START_DELTA,     t -> cache.startDelta = Integer.parseInt(t))
 				.pattern(START_SONG_DELTA, t -> cache.startSongDelta = Integer.parseInt(t))
 				// for MMLTrack
+				// MMLの解析は全体の読み込み後にまとめて行う.
 				.pattern(MML_TRACK,   t -> { 
-					lastTrack = new MMLTrack(cache.startOffset, cache.startDelta, cache.startSongDelta).setMML(t);
-					score.addTrack(lastTrack);
+					lastTrack = new MMLTrack(cache.startOffset, cache.startDelta, cache.startSongDelta);
+					pendingTracks.add(lastTrack);
+					pendingMML.add(t);
 					cache.clear();
 				})
 				.pattern(TRACK_NAME,    t -> getLastTrack().setTrackName(t) )
@@ -89,23 +103,49 @@ public final class MMLScoreSerializer extends AbstractMMLParser {
 		score.getTrackList().clear();
 		score.getMarkerList().clear();
 		score.getTimeSignatureList().clear();
+		lineBuffer.setLength(0);
+		inMML = false;
+		pendingTracks.clear();
+		pendingMML.clear();
 
-		List<SectionContents> contentsList = SectionContents.makeSectionContentsByInputStream(istream, "UTF-8");
-		if (contentsList.isEmpty()) {
-			throw(new MMLParseException());
-		}
-		for (SectionContents section : contentsList) {
-			if (section.getName().equals(SCORE_SECTION)) {
-				parseMMLScore(section.getContents());
-			} else if (section.getName().equals(MARKER_SECTION)) {
-				parseMarker(section.getContents());
-			} else if (section.getName().equals(TIME_SIGNATURE_SECTION)) {
-				parseTimeSignature(section.getContents());
+		try {
+			boolean hasSection = SectionContents.readSections(new InputStreamReader(istream, StandardCharsets.UTF_8), (sectionName, lineText) -> {
+				if (sectionName.equals(SCORE_SECTION)) {
+					parseMMLScoreLine(lineText);
+				} else if (sectionName.equals(MARKER_SECTION)) {
+					parseMarkerLine(lineText);
+				} else if (sectionName.equals(TIME_SIGNATURE_SECTION)) {
+					parseTimeSignatureLine(lineText);
+				}
+			});
+			if (!hasSection) {
+				throw(new MMLParseException());
 			}
+		} catch (IOException e) {
+			throw new MMLParseException(e.getMessage());
 		}
+		if (lineBuffer.length() > 0) {
+			// 終端の ; がないMML.
+			parser.parseLine(lineBuffer.toString());
+		}
+		addPendingTracks();
 		return score;
 	}
 
+	/**
+	 * 読み込んだトラックのMMLを並列に解析し, ファイルの順にスコアへ追加します.
+	 * (テンポリストの統合はトラック追加順に依存するため, 追加は逐次に行う)
+	 */
+	private void addPendingTracks() {
+		IntStream.range(0, pendingTracks.size()).parallel()
+		.forEach(i -> pendingTracks.get(i).setMML(pendingMML.get(i)));
+		for (MMLTrack track : pendingTracks) {
+			score.addTrack(track);
+		}
+		pendingTracks.clear();
+		pendingMML.clear();
+	}
+
 	private void putTempoObj(String s) {
 		if (s.length() > 0) {
 			String[] l = s.split(",");
@@ -120,24 +160,15 @@ public final class MMLScoreSerializer extends AbstractMMLParser {
 	}
 
 	/**
-	 * MML@ - ; 内の空白文字を削除する.
-	 * @param text
-	 * @return
+	 * MML@ - ; 内の空白文字を削除して追加する.
 	 */
-	private String fixMMLspace(String text) {
-		StringBuilder sb = new StringBuilder();
-		int index = 0;
-		int start = 0;
-
-		while ( (start = text.indexOf("MML@", index)) >= 0) {
-			int end = text.indexOf(';', start);
-			sb.append(text, index, start);
-			sb.append( text.substring(start, end+1).replaceAll("[ \t\f\r\n]", "") );
-			index = end + 1;
+	private void appendWithoutSpace(String text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			if ( (c != ' ') && (c != '\t') && (c != '\f') && (c != '\r') && (c != '\n') ) {
+				lineBuffer.append(c);
+			}
 		}
-
-		sb.append(text.substring(index));
-		return sb.toString();
 	}
 
 	private final static class ParseCache {
@@ -159,49 +190,73 @@ public final class MMLScoreSerializer extends AbstractMMLParser {
 	}
 
 	/**
-	 * parse [mml-score] contents
-	 * @param contents
+	 * parse [mml-score] line
+	 * MML@ - ; 内の空白文字（改行を含む）は削除し, 1行として扱う.
+	 * @param lineText
 	 */
-	private void parseMMLScore(String contents) {
-		parser.parse(fixMMLspace(contents));
+	private void parseMMLScoreLine(String lineText) {
+		if ( !inMML && (lineText.indexOf("MML@") < 0) ) {
+			parser.parseLine(lineText);
+			return;
+		}
+
+		int index = 0;
+		while (true) {
+			if (inMML) {
+				int end = lineText.indexOf(';', index);
+				if (end < 0) {
+					// 次の行へ続く.
+					appendWithoutSpace(lineText, index, lineText.length());
+					return;
+				}
+				appendWithoutSpace(lineText, index, end+1);
+				index = end + 1;
+				inMML = false;
+			} else {
+				int start = lineText.indexOf("MML@", index);
+				if (start < 0) {
+					lineBuffer.append(lineText, index, lineText.length());
+					break;
+				}
+				lineBuffer.append(lineText, index, start);
+				index = start;
+				inMML = true;
+			}
+		}
+		parser.parseLine(lineBuffer.toString());
+		lineBuffer.setLength(0);
 	}
 
 	/**
-	 * parse [marker] contents
-	 * @param contents
+	 * parse [marker] line
+	 * @param lineText
 	 */
-	private void parseMarker(String contents) {
-		score.getMarkerList().clear();
-		for (String s : contents.split("\n")) {
-			// <tickOffset>=<name>
-			int index = s.indexOf('=');
-			if (index > 0) {
-				String tickString = s.substring(0, index);
-				String name = s.substring(index+1);
-				score.getMarkerList().add( new Marker(name, Integer.parseInt(tickString)) );
-			}
+	private void parseMarkerLine(String lineText) {
+		// <tickOffset>=<name>
+		int index = lineText.indexOf('=');
+		if (index > 0) {
+			String tickString = lineText.substring(0, index);
+			String name = lineText.substring(index+1);
+			score.getMarkerList().add( new Marker(name, Integer.parseInt(tickString)) );
 		}
 	}
 
 	/**
-	 * parse [time-signature] contents
-	 * @param contents
+	 * parse [time-signature] line
+	 * @param lineText
 	 */
-	private void parseTimeSignature(String contents) {
-		score.getTimeSignatureList().clear();
-		for (String s : contents.split("\n")) {
-			// <tickOffset>=<num>/<base>
-			int index = s.indexOf('=');
-			if (index > 0) {
-				String tickString = s.substring(0, index);
-				String sig[] = s.substring(index+1).split("/");
-				int numTime = Integer.parseInt(sig[0]);
-				int baseTime = Integer.parseInt(sig[1]);
-				try {
-					score.addTimeSignature(new TimeSignature(score, Integer.parseInt(tickString), numTime, baseTime));
-				} catch (NumberFormatException | MMLException e) {
-					e.printStackTrace();
-				}
+	private void parseTimeSignatureLine(String lineText) {
+		// <tickOffset>=<num>/<base>
+		int index = lineText.indexOf('=');
+		if (index > 0) {
+			String tickString = lineText.substring(0, index);
+			String sig[] = lineText.substring(index+1).split("/");
+			int numTime = Integer.parseInt(sig[0]);
+			int baseTime = Integer.parseInt(sig[1]);
+			try {
+				score.addTimeSignature(new TimeSignature(score, Integer.parseInt(tickString), numTime, baseTime));
+			} catch (NumberFormatException | MMLException e) {
+				e.printStackTrace();
 			}
 		}
 	}
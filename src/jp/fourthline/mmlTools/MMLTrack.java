@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
+import jp.fourthline.mmlTools.core.ContentHash;
 import jp.fourthline.mmlTools.core.MMLText;
 import jp.fourthline.mmlTools.core.MMLTicks;
 import jp.fourthline.mmlTools.core.MMLException;
@@ -188,6 +189,17 @@ public final class MMLTrack implements Serializable, Cloneable {
 		return mml;
 	}
 
+	/**
+	 * マビノギ用MMLの生成結果のバージョン. 各パートのMML, ランク表示が変わると値が変わります.
+	 * @return
+	 */
+	public long getMabiMMLVersion() {
+		long h = mabiMML.textHash();
+		h = ContentHash.mix(h, generated);
+		h = ContentHash.mix(h, isExcludeSongPart());
+		return h;
+	}
+
 	public void setGlobalTempoList(List<MMLTempoEvent> globalTempoList) {
 		this.globalTempoList = globalTempoList;
 
@@ -341,6 +353,21 @@ public final class MMLTrack implements Serializable, Cloneable {
 		return this;
 	}
 
+	/**
+	 * 別インスタンスでgenerateした結果 (出力用MML) を反映します.
+	 * 未generateで, MMLが同じ場合のみ反映します.
+	 * @param generatedTrack  generate済みのトラック
+	 * @return 反映した場合は true
+	 */
+	public boolean applyGenerated(MMLTrack generatedTrack) {
+		if ( generated || !generatedTrack.generated || !getOriginalMML().equals(generatedTrack.getOriginalMML()) ) {
+			return false;
+		}
+		mabiMML.setMMLText(generatedTrack.getMabiMMLArray());
+		generated = true;
+		return true;
+	}
+
 	private String[] getMMLStrings(boolean tailFix, boolean mabiTempo) throws MMLExceptionList {
 		int count = mmlParts.size();
 		String[] mml = new String[count];
@@ -537,6 +564,30 @@ public final class MMLTrack implements Serializable, Cloneable {
 		return maxTime/1000.0;
 	}
 
+	/**
+	 * 保存される内容 (MML, ノート, トラック設定) の64bitフィンガープリント. 変更検出に使用します.
+	 * @return
+	 */
+	public long fingerprint() {
+		long h = originalMML.contentHash();
+		for (MMLEventList eventList : mmlParts) {
+			h = ContentHash.mix(h, eventList.fingerprint());
+		}
+		h = ContentHash.mix(h, trackName);
+		h = ContentHash.mix(h, program);
+		h = ContentHash.mix(h, songProgram);
+		h = ContentHash.mix(h, panpot);
+		h = ContentHash.mix(h, volume);
+		h = ContentHash.mix(h, visible);
+		h = ContentHash.mix(h, commonStartOffset);
+		h = ContentHash.mix(h, startDelta);
+		h = ContentHash.mix(h, startSongDelta);
+		h = ContentHash.mix(h, attackDelayCorrect);
+		h = ContentHash.mix(h, attackSongDelayCorrect);
+		h = ContentHash.mix(h, disableNopt);
+		return ContentHash.finish(h);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof MMLTrack)) {
@@ -694,6 +745,36 @@ public final class MMLTrack implements Serializable, Cloneable {
 		return disableNopt;
 	}
 
+	/**
+	 * MMLを再Parseせずに, ノートと設定を複製したトラックを作成します. (スナップショット用)
+	 * @param globalTempoList 複製先のスコアのテンポリスト
+	 * @return
+	 */
+	MMLTrack snapshot(List<MMLTempoEvent> globalTempoList) {
+		MMLTrack o = new MMLTrack(commonStartOffset, startDelta, startSongDelta);
+		o.globalTempoList = globalTempoList;
+		o.mmlParts.clear();
+		for (MMLEventList eventList : mmlParts) {
+			o.mmlParts.add(eventList.snapshot(globalTempoList));
+		}
+		for (int i = 0; i < PART_COUNT; i++) {
+			o.originalMML.setMMLText(originalMML.getText(i), i);
+			o.mabiMML.setMMLText(mabiMML.getText(i), i);
+		}
+		o.generated = generated;
+		o.program = program;
+		o.trackName = trackName;
+		o.panpot = panpot;
+		o.volume = volume;
+		o.visible = visible;
+		o.attackDelayCorrect = attackDelayCorrect;
+		o.attackSongDelayCorrect = attackSongDelayCorrect;
+		o.disableNopt = disableNopt;
+		o.songProgram = songProgram;
+		o.fix64Tempo = fix64Tempo;
+		return o;
+	}
+
 	@Override
 	public MMLTrack clone() {
 		MMLTrack o = new MMLTrack(commonStartOffset, startDelta, startSongDelta)
@@ -26,7 +26,7 @@ public final class Measure {
 	 * @return
 	 */
 	public static int measuredTick(MMLScore score, int tick) {
-		return new Measure(score, tick).measuredTick();
+		return score.getMeasureGrid().measuredTick(tick);
 	}
 
 	/**
@@ -36,37 +36,31 @@ public final class Measure {
 	 * @return
 	 */
 	public static int tickToMeasure(MMLScore score, int tick) {
-		return new Measure(score, tick).getMeasure();
+		return score.getMeasureGrid().tickToMeasure(tick);
 	}
 
 	public static int nextMeasure(MMLScore score, int tick, boolean next) {
-		var measure = new Measure(score, tick);
+		var grid = score.getMeasureGrid();
+		var measure = new Measure(grid, tick);
 		if (next) {
 			tick += measure.getMeasureTick();
 		} else {
 			tick -= measure.getBeatTick();
 		}
-		tick = new Measure(score, tick).measuredTick();
+		tick = grid.measuredTick(tick);
 		return tick;
 	}
 
 	public Measure(MMLScore score, int tick) {
-		var timeSignatureList = score.getTimeSignatureList();
-		int numTime = score.getTimeCountOnly();
-		int beatTick = score.getBeatTick();
-		int m = 0;
-		int baseTick = 0;
-
-		for (TimeSignature t : timeSignatureList) {
-			if (t.getTickOffset() <= tick) {
-				baseTick = t.getTickOffset();
-				m = t.getMeasureOffset();
-				beatTick = t.getBaseTick();
-				numTime = t.getNumTime();
-			} else {
-				break;
-			}
-		}
+		this(score.getMeasureGrid(), tick);
+	}
+
+	public Measure(MeasureGrid grid, int tick) {
+		int seg = grid.segmentOfTick(tick);
+		int baseTick = grid.getStartTick(seg);
+		int m = grid.getStartMeasure(seg);
+		int numTime = grid.getNumTime(seg);
+		int beatTick = grid.getBeatTick(seg);
 
 		this.measure = m + ((tick - baseTick) / (beatTick * numTime));
 		int barR = (tick - baseTick) % (beatTick * numTime);
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools;
+
+import java.util.List;
+
+/**
+ * 拍子記号から作成する小節・拍の位置の索引.
+ * <pre>
+ * 拍子ごとの区間 (開始tick, 開始小節, 拍子) を配列で保持し, tickと小節番号の変換を二分探索で行います.
+ * MMLScore.getMeasureGrid() で取得し, 拍子の変更 (TimeSignature.recalcTimeSignatureList) で作り直されます.
+ * 作成後は変更されないため, 別スレッドから参照できます.
+ * </pre>
+ */
+public final class MeasureGrid {
+
+	/**
+	 * 拍ごとの処理.
+	 */
+	@FunctionalInterface
+	public interface BeatConsumer {
+		/**
+		 * @param tick      拍の先頭tick
+		 * @param measure   小節番号
+		 * @param beat      小節内の拍の番号 (0が小節の先頭)
+		 * @param beatTick  拍の長さ
+		 */
+		void accept(int tick, int measure, int beat, int beatTick);
+	}
+
+	/**
+	 * 小節ごとの処理.
+	 */
+	@FunctionalInterface
+	public interface MeasureConsumer {
+		/**
+		 * @param tick      小節の先頭tick
+		 * @param measure   小節番号
+		 */
+		void accept(int tick, int measure);
+	}
+
+	private final int size;
+	private final int[] startTick;
+	private final int[] startMeasure;
+	private final int[] numTime;
+	private final int[] beatTick;
+
+	/** 作成時の拍子記号リスト (再作成の判定用) */
+	private final List<TimeSignature> timeSignatureList;
+	private final int timeSignatureCount;
+
+	MeasureGrid(MMLScore score) {
+		timeSignatureList = score.getTimeSignatureList();
+		timeSignatureCount = timeSignatureList.size();
+		size = timeSignatureCount + 1;
+		startTick = new int[size];
+		startMeasure = new int[size];
+		numTime = new int[size];
+		beatTick = new int[size];
+
+		// 最初の拍子記号までは, スコアの拍子.
+		numTime[0] = score.getTimeCountOnly();
+		beatTick[0] = score.getBeatTick();
+		for (int i = 1; i < size; i++) {
+			TimeSignature ts = timeSignatureList.get(i-1);
+			startTick[i] = ts.getTickOffset();
+			startMeasure[i] = ts.getMeasureOffset();
+			numTime[i] = ts.getNumTime();
+			beatTick[i] = ts.getBaseTick();
+		}
+	}
+
+	/**
+	 * 作成後に拍子記号リストが直接変更されていないかを判定します.
+	 * @param score
+	 * @return
+	 */
+	boolean isValid(MMLScore score) {
+		return (timeSignatureList == score.getTimeSignatureList()) && (timeSignatureCount == timeSignatureList.size());
+	}
+
+	/**
+	 * tickを含む区間. (開始tickがtick以下の最後の区間)
+	 */
+	int segmentOfTick(int tick) {
+		int lo = 1;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (startTick[mid] <= tick) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo - 1;
+	}
+
+	/**
+	 * 小節を含む区間. (開始小節がmeasure以下の最後の区間)
+	 */
+	private int segmentOfMeasure(int measure) {
+		int lo = 1;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (startMeasure[mid] <= measure) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo - 1;
+	}
+
+	int getStartTick(int segment) {
+		return startTick[segment];
+	}
+
+	int getStartMeasure(int segment) {
+		return startMeasure[segment];
+	}
+
+	int getNumTime(int segment) {
+		return numTime[segment];
+	}
+
+	int getBeatTick(int segment) {
+		return beatTick[segment];
+	}
+
+	/**
+	 * tickから小節番号を算出する
+	 * @param tick
+	 * @return
+	 */
+	public int tickToMeasure(int tick) {
+		int seg = segmentOfTick(tick);
+		return startMeasure[seg] + (tick - startTick[seg]) / (numTime[seg] * beatTick[seg]);
+	}
+
+	/**
+	 * tickからその小節の先頭tickを算出する
+	 * @param tick
+	 * @return
+	 */
+	public int measuredTick(int tick) {
+		int seg = segmentOfTick(tick);
+		return tick - (tick - startTick[seg]) % (numTime[seg] * beatTick[seg]);
+	}
+
+	/**
+	 * tickを含む小節の長さ
+	 * @param tick
+	 * @return
+	 */
+	public int measureTickAt(int tick) {
+		int seg = segmentOfTick(tick);
+		return numTime[seg] * beatTick[seg];
+	}
+
+	/**
+	 * 小節番号から小節の先頭tickを算出する
+	 * @param measure
+	 * @return
+	 */
+	public int measureToTick(int measure) {
+		int seg = segmentOfMeasure(measure);
+		return startTick[seg] + (measure - startMeasure[seg]) * (numTime[seg] * beatTick[seg]);
+	}
+
+	/**
+	 * startTickを含む小節の先頭から, endTick以下の拍を順に処理します.
+	 * @param startTick
+	 * @param endTick
+	 * @param action
+	 */
+	public void forEachBeat(int startTick, int endTick, BeatConsumer action) {
+		int seg = segmentOfTick(startTick);
+		int tick = measuredTick(startTick);
+		int measure = tickToMeasure(startTick);
+		while (tick <= endTick) {
+			int n = numTime[seg];
+			int beat = beatTick[seg];
+			for (int i = 0; (i < n) && (tick <= endTick); i++) {
+				action.accept(tick, measure, i, beat);
+				tick += beat;
+			}
+			measure++;
+			while ( (seg + 1 < size) && (this.startTick[seg+1] <= tick) ) {
+				seg++;
+			}
+		}
+	}
+
+	/**
+	 * startTickを含む小節から, 先頭がendTick未満の小節を順に処理します.
+	 * @param startTick
+	 * @param endTick
+	 * @param action
+	 */
+	public void forEachMeasure(int startTick, int endTick, MeasureConsumer action) {
+		int seg = segmentOfTick(startTick);
+		int tick = measuredTick(startTick);
+		int measure = tickToMeasure(startTick);
+		while (tick < endTick) {
+			action.accept(tick, measure);
+			tick += numTime[seg] * beatTick[seg];
+			measure++;
+			while ( (seg + 1 < size) && (this.startTick[seg+1] <= tick) ) {
+				seg++;
+			}
+		}
+	}
+}
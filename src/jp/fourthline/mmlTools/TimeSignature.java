@@ -44,6 +44,21 @@ public final class TimeSignature extends MMLEvent {
 		this(score, tickOffset, Integer.parseInt(numTime), Integer.parseInt(baseTime));
 	}
 
+	private TimeSignature(TimeSignature o) {
+		super(o.getTickOffset());
+		this.numTime = o.numTime;
+		this.baseTick = o.baseTick;
+		this.measureOffset = o.measureOffset;
+	}
+
+	/**
+	 * 複製を作成します. (スナップショット用)
+	 * @return
+	 */
+	TimeSignature copy() {
+		return new TimeSignature(this);
+	}
+
 	@Override
 	public void setTickOffset(int tickOffset) {
 		// 小節単位に固定するため、個別の設定は不可
@@ -68,6 +83,7 @@ public final class TimeSignature extends MMLEvent {
 			int tick = measureToCalcTick(score, ts.getMeasureOffset());
 			ts.setViewTickOffset(tick);
 		}
+		score.invalidateMeasureGrid();
 	}
 
 	/**
@@ -77,48 +93,11 @@ public final class TimeSignature extends MMLEvent {
 	 * @return
 	 */
 	public static int tickToMeasure(MMLScore score, int tick) {
-		var timeSignatureIterator = score.getTimeSignatureList().iterator();
-		int numTime = score.getTimeCountOnly();
-		int beatTick = score.getBeatTick();
-		int m = 0;
-
-		TimeSignature timeSignature = timeSignatureIterator.hasNext() ? timeSignatureIterator.next() : null;
-		while (beatTick <= tick) {
-			if ( (timeSignature != null) && (m >= timeSignature.getMeasureOffset()) ) {
-				numTime = timeSignature.getNumTime();
-				beatTick = timeSignature.getBaseTick();
-				timeSignature = timeSignatureIterator.hasNext() ? timeSignatureIterator.next() : null;
-			}
-			int measureTick = numTime * beatTick;
-			if (measureTick <= tick) {
-				m++;
-				tick -= measureTick;
-			} else {
-				tick -= beatTick;
-			}
-		}
-		return m;
+		return score.getMeasureGrid().tickToMeasure(tick);
 	}
 
 	public static int measureToTick(MMLScore score, int measure) {
-		var timeSignatureList = score.getTimeSignatureList();
-		int numTime = score.getTimeCountOnly();
-		int beatTick = score.getBeatTick();
-		int m = 0;
-		int baseTick = 0;
-
-		for (TimeSignature t : timeSignatureList) {
-			if (t.getMeasureOffset() <= measure) {
-				baseTick = t.getTickOffset();
-				m = t.getMeasureOffset();
-				beatTick = t.getBaseTick();
-				numTime = t.getNumTime();
-			} else {
-				break;
-			}
-		}
-
-		return baseTick + (measure - m) * (numTime * beatTick);
+		return score.getMeasureGrid().measureToTick(measure);
 	}
 
 	static int measureToCalcTick(MMLScore score, int measure) {
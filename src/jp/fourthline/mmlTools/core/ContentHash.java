@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools.core;
+
+/**
+ * 変更検出用の64bitハッシュ値を作成します.
+ * <pre>
+ * long h = ContentHash.INIT;
+ * h = ContentHash.mix(h, value1);
+ * h = ContentHash.mix(h, value2);
+ * return ContentHash.finish(h);
+ * </pre>
+ * 暗号学的な強度はありません. 値が等しくなっても, 内容が等しいことは保証しません.
+ */
+public final class ContentHash {
+	public static final long INIT = 0xCBF29CE484222325L;
+	private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+	private ContentHash() {}
+
+	public static long mix(long h, long value) {
+		return h * GOLDEN + value;
+	}
+
+	public static long mix(long h, boolean value) {
+		return mix(h, value ? 1 : 0);
+	}
+
+	public static long mix(long h, String s) {
+		return mix(h, of(s));
+	}
+
+	/**
+	 * splitmix64 の最終化.
+	 */
+	public static long finish(long h) {
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+
+	/**
+	 * 文字列のハッシュ値 (FNV-1a 64bit).
+	 * @param s
+	 * @return
+	 */
+	public static long of(String s) {
+		long h = INIT;
+		int len = s.length();
+		for (int i = 0; i < len; i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return mix(h, len);
+	}
+}
@@ -18,6 +18,8 @@ import jp.fourthline.mmlTools.ComposeRank;
 public final class MMLText {
 	private static final int DEFAULT_PART_NUM = 4;
 	private final String[] text;
+	/** 各パートの文字列のハッシュ値 (文字列設定時に更新) */
+	private final long[] textHash;
 
 	/** 歌パートを除いて他のパートの文字数を増やすオプション (2021/11/18 MabiKR) */
 	private boolean excludeSongPart = false;
@@ -35,8 +37,9 @@ public final class MMLText {
 
 	public MMLText() {
 		text = new String[ DEFAULT_PART_NUM ];
+		textHash = new long[ DEFAULT_PART_NUM ];
 		for (int i = 0; i < text.length; i++) {
-			text[i] = "";
+			setText(i, "");
 		}
 	}
 
@@ -60,14 +63,14 @@ public final class MMLText {
 
 	public MMLText setMMLText(String[] parts) {
 		for (int i = 0; (i < parts.length) && (i < this.text.length); i++) {
-			this.text[i] = parts[i];
+			setText(i, parts[i]);
 		}
 		return this;
 	}
 
 	public MMLText setMMLText(String text, int partIndex) {
 		if (partIndex < this.text.length) {
-			this.text[partIndex] = text;
+			setText(partIndex, text);
 		} else {
 			throw new IndexOutOfBoundsException();
 		}
@@ -94,6 +97,43 @@ public final class MMLText {
 		return this;
 	}
 
+	private void setText(int index, String s) {
+		if (s != this.text[index]) {
+			this.textHash[index] = ContentHash.of(s);
+		}
+		this.text[index] = s;
+	}
+
+	/**
+	 * getMML() で出力される内容のハッシュ値を取得します.
+	 * @return
+	 */
+	public long contentHash() {
+		long h = ContentHash.INIT;
+		for (int i = 0; i < 3; i++) {
+			h = ContentHash.mix(h, textHash[i]);
+		}
+		if (text[0].isEmpty() && !validSongPart() && (!text[1].isEmpty() || !text[2].isEmpty())) {
+			h = ContentHash.mix(h, melody_empty_str);
+		}
+		if (validSongPart()) {
+			h = ContentHash.mix(h, textHash[3]);
+		}
+		return ContentHash.finish(h);
+	}
+
+	/**
+	 * 各パートの文字列 (getText) のハッシュ値を取得します. 表示内容の変更検出に使用します.
+	 * @return
+	 */
+	public long textHash() {
+		long h = ContentHash.INIT;
+		for (long v : textHash) {
+			h = ContentHash.mix(h, v);
+		}
+		return ContentHash.finish(h);
+	}
+
 	public boolean isEmpty() {
 		for (String s : this.text) {
 			if (s.length() > 0) {
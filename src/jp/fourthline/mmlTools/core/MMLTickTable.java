@@ -5,6 +5,8 @@
 package jp.fourthline.mmlTools.core;
 
 import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
@@ -13,6 +15,11 @@ public final class MMLTickTable {
 	private static final int COMBN = 3;
 	public static final int TPQN = 96;
 
+	/** ビルド時に生成する逆変換テーブルのリソース名 */
+	static final String BINARY_TABLE = "MMLTickTable.bin";
+	/** "MTT1" */
+	private static final int BINARY_MAGIC = 0x4D545431;
+
 	/**
 	 * For MML text -> tick
 	 */
@@ -21,15 +28,34 @@ public final class MMLTickTable {
 	/**
 	 * For tick -> MML text
 	 */
-	private final IntMap<List<String>> tickInvTable;
+	private IntMap<List<String>> tickInvTable;
 
+	/**
+	 * 逆変換テーブルを次の順で用意します.
+	 * <pre>
+	 * 1. "mabiicco.ticktable" で指定されたテキスト形式のリソース.
+	 * 2. ビルド時に生成したバイナリ形式のリソース (MMLTickTable.bin).
+	 * 3. 組み合わせ探索による生成.
+	 * </pre>
+	 * @return
+	 */
 	public static MMLTickTable createTickTable() {
-		InputStream preTable = null;
 		String preLoadFile = System.getProperty("mabiicco.ticktable");
 		if (preLoadFile != null) {
-			preTable = MMLTickTable.class.getResourceAsStream(preLoadFile);
+			InputStream preTable = MMLTickTable.class.getResourceAsStream(preLoadFile);
+			if (preTable != null) {
+				return new MMLTickTable(preTable);
+			}
+		}
+
+		try (InputStream binaryTable = MMLTickTable.class.getResourceAsStream(BINARY_TABLE)) {
+			if (binaryTable != null) {
+				return createFromBinary(ByteBuffer.wrap(binaryTable.readAllBytes()));
+			}
+		} catch (IOException e) {
+			System.err.println("MMLTickTable: " + e.getMessage());
 		}
-		return new MMLTickTable(preTable);
+		return new MMLTickTable(null);
 	}
 
 	MMLTickTable(InputStream inputStream) {
@@ -39,6 +65,24 @@ public final class MMLTickTable {
 		System.out.println("MMLTickTable " + time.ms() + "ms");
 	}
 
+	private MMLTickTable() {
+		generateTickTable();
+	}
+
+	/**
+	 * バイナリ形式の逆変換テーブルから作成します.
+	 * @param binaryTable
+	 * @return
+	 * @throws IOException  形式が不正な場合.
+	 */
+	static MMLTickTable createFromBinary(ByteBuffer binaryTable) throws IOException {
+		NanoTime time = NanoTime.start();
+		MMLTickTable table = new MMLTickTable();
+		table.tickInvTable = table.readBinaryInvTable(binaryTable);
+		System.out.println("MMLTickTable " + time.ms() + "ms");
+		return table;
+	}
+
 	public IntMap<List<String>> getInvTable() {
 		return this.tickInvTable;
 	}
@@ -137,9 +181,71 @@ public final class MMLTickTable {
 		return new IntMap<>(table);
 	}
 
+	/**
+	 * 逆変換テーブルをバイナリ形式で出力します.
+	 * <pre>
+	 * int magic, int キー数, int テーブル長
+	 * int[テーブル長]: tickごとのパターン. 1byteずつ (キーのIndex+1) を下位から詰める. 0 は変換不可.
+	 * </pre>
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	void writeBinaryInvTable(OutputStream outputStream) throws IOException {
+		var keyIndex = new HashMap<String, Integer>();
+		for (String key : tickTable.keySet()) {
+			keyIndex.put(key, keyIndex.size() + 1);
+		}
+
+		DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(outputStream));
+		stream.writeInt(BINARY_MAGIC);
+		stream.writeInt(keyIndex.size());
+		int max = tickInvTable.max();
+		stream.writeInt(max);
+		for (int i = 0; i < max; i++) {
+			int packed = 0;
+			List<String> pattern = tickInvTable.get(i);
+			if (pattern != null) {
+				for (int j = 0; j < pattern.size(); j++) {
+					packed |= keyIndex.get(pattern.get(j)) << (j * 8);
+				}
+			}
+			stream.writeInt(packed);
+		}
+		stream.flush();
+	}
+
+	private IntMap<List<String>> readBinaryInvTable(ByteBuffer buffer) throws IOException {
+		String[] keys = tickTable.keySet().toArray(new String[0]);
+		try {
+			if ( (buffer.getInt() != BINARY_MAGIC) || (buffer.getInt() != keys.length) ) {
+				throw new IOException("invalid tick table");
+			}
+			int max = buffer.getInt();
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			List<String>[] array = new List[max];
+			for (int i = 0; i < max; i++) {
+				int packed = buffer.getInt();
+				if (packed != 0) {
+					var pattern = new ArrayList<String>(COMBN);
+					for (; packed != 0; packed >>>= 8) {
+						pattern.add(keys[(packed & 0xff) - 1]);
+					}
+					array[i] = pattern;
+				}
+			}
+			return new IntMap<>(array);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("invalid tick table", e);
+		}
+	}
+
 	public final static class IntMap<T> {
 		private final T[] array;
 
+		private IntMap(T[] array) {
+			this.array = array;
+		}
+
 		@SuppressWarnings("unchecked")
 		public IntMap(Map<Integer, T> map) {
 			var list = new ArrayList<T>();
@@ -177,8 +283,18 @@ public final class MMLTickTable {
 		writeToOutputStreamInvTable(System.out);
 	}
 
-	public static void main(String[] args) {
+	/**
+	 * 引数なし: テキスト形式で標準出力へ出力します.
+	 * 引数あり: 指定したファイルへバイナリ形式で出力します. (ビルド時のリソース生成)
+	 */
+	public static void main(String[] args) throws IOException {
 		MMLTickTable tickTable = new MMLTickTable(null);
-		tickTable.printTickList();
+		if (args.length > 0) {
+			try (OutputStream outputStream = new FileOutputStream(args[0])) {
+				tickTable.writeBinaryInvTable(outputStream);
+			}
+		} else {
+			tickTable.printTickList();
+		}
 	}
 }
@@ -5,7 +5,7 @@
 package jp.fourthline.mmlTools.core;
 
 
-import java.util.List;
+import java.util.ArrayList;
 
 
 /**
@@ -76,72 +76,99 @@ public final class MMLTicks {
 		this.needTie = needTie;
 	}
 
-	private String mmlNotePart(String phoneticString) {
-		return mmlNotePart(List.of(phoneticString));
-	}
-
-	private String mmlNotePart(List<String> phoneticString) {
-		StringBuilder sb = new StringBuilder();
-
-		phoneticString.forEach(t -> {
-			if (needTie) {
-				sb.append('&');
-			}
-			sb.append(noteName).append(t);
-		});
+	/** "1" のtick長 */
+	private static final int TICK_1 = tickTable.getTable().get("1");
+	/** "1." のtick長 */
+	private static final int TICK_1DOT = tickTable.getTable().get("1.");
 
-		return sb.toString();
-	}
+	/**
+	 * tick長 (0 ~ "1"*2) から音長文字列の並びへの変換表. 変換できないtick長は null.
+	 * "1." 以上の部分はこの表を使う前に除かれるため, この範囲のみを保持します.
+	 */
+	private static final String[][] lengthTable = createLengthTable();
 
-	private String makeMMLText(StringBuilder sb, int remTick) throws MMLException {
-		// 1~64の分割
-		if (remTick > 0) {
-			for (int base = 1; base <= 64; base *= 2) {
-				int baseTick = getTick(""+base);
-				if (tickTable.getInvTable().containsKey(remTick)) {
-					sb.append( mmlNotePart(tickTable.getInvTable().get(remTick)) );
+	private static String[][] createLengthTable() {
+		String[][] table = new String[TICK_1*2 + 1][];
+		int[] baseTick = new int[7];
+		for (int i = 0; i < baseTick.length; i++) {
+			baseTick[i] = tickTable.getTable().get(Integer.toString(1 << i));
+		}
+		var invTable = tickTable.getInvTable();
+		var list = new ArrayList<String>();
+		for (int tick = 0; tick < table.length; tick++) {
+			// 1~64の分割
+			list.clear();
+			int remTick = tick;
+			for (int i = 0; (i < baseTick.length) && (remTick > 0); i++) {
+				if (invTable.containsKey(remTick)) {
+					list.addAll(invTable.get(remTick));
 					remTick = 0;
 					break;
 				}
-				while (remTick >= baseTick) {
-					sb.append( mmlNotePart(""+base) );
-					remTick -= baseTick;
+				while (remTick >= baseTick[i]) {
+					list.add(Integer.toString(1 << i));
+					remTick -= baseTick[i];
 				}
 			}
-			if (remTick > 0) {
-				throw MMLException.createUndefinedTickException(remTick, tick);
+			if (remTick == 0) {
+				table[tick] = list.toArray(new String[list.size()]);
 			}
 		}
+		return table;
+	}
 
-		if (needTie) {
-			if (sb.length() > 0) {
-				return sb.substring(1);
+	private void appendNotePart(StringBuilder sb, int start, String length) {
+		if ( needTie && (sb.length() > start) ) {
+			sb.append('&');
+		}
+		sb.append(noteName).append(length);
+	}
+
+	private void makeMMLText(StringBuilder sb, int start, int remTick) throws MMLException {
+		if (remTick > 0) {
+			String[] lengthList = (remTick < lengthTable.length) ? lengthTable[remTick] : null;
+			if (lengthList == null) {
+				throw MMLException.createUndefinedTickException(remTick, tick);
+			}
+			for (String length : lengthList) {
+				appendNotePart(sb, start, length);
 			}
-			return "";
-		} else {
-			return sb.toString();
 		}
 	}
 
 	/**
-	 * noteNameとtickをMMLの文字列に変換します.
-	 * needTieがtrueのときは、'&amp;' による連結を行います.
-	 * @return MML文字列
+	 * noteNameとtickをMMLの文字列に変換し, 指定のStringBuilderに追加します.
+	 * @param sb 追加先
 	 * @throws MMLException 変換に失敗した
 	 */
-	public String toMMLText() throws MMLException {
+	public void appendMMLText(StringBuilder sb) throws MMLException {
+		int start = sb.length();
 		int remTick = tick;
-		StringBuilder sb = new StringBuilder();
 
 		// "1."
-		int mTick = getTick("1.");
-		int tick1 = getTick("1");
-		while (remTick > (tick1*2)) {
-			sb.append( mmlNotePart("1.") );
-			remTick -= mTick;
+		while (remTick > (TICK_1*2)) {
+			appendNotePart(sb, start, "1.");
+			remTick -= TICK_1DOT;
 		}
 
-		return makeMMLText(sb, remTick);
+		try {
+			makeMMLText(sb, start, remTick);
+		} catch (MMLException e) {
+			sb.setLength(start);
+			throw e;
+		}
+	}
+
+	/**
+	 * noteNameとtickをMMLの文字列に変換します.
+	 * needTieがtrueのときは、'&amp;' による連結を行います.
+	 * @return MML文字列
+	 * @throws MMLException 変換に失敗した
+	 */
+	public String toMMLText() throws MMLException {
+		StringBuilder sb = new StringBuilder();
+		appendMMLText(sb);
+		return sb.toString();
 	}
 
 	/**
@@ -157,10 +184,11 @@ public final class MMLTicks {
 
 		int baseTick = base.getTick();
 		while (remTick >= baseTick + min) {
-			sb.append( mmlNotePart(base.getBase()) );
+			appendNotePart(sb, 0, base.getBase());
 			remTick -= baseTick;
 		}
 
-		return makeMMLText(sb, remTick);
+		makeMMLText(sb, 0, remTick);
+		return sb.toString();
 	}
 }
@@ -69,7 +69,7 @@ public final class MMLStringOptimizer {
 	public String optimizeGen2() {
 		Optimizer[] optimizerList = {
 				new OxLxFixedOptimizer(disableNopt),
-				new NxBpCmOptimizer(disableNopt)
+				NxStateOptimizer.createNxBpCm(disableNopt)
 		};
 		return optimize(optimizerList);
 	}
@@ -91,7 +91,7 @@ public final class MMLStringOptimizer {
 		return optimize(!disableNopt ? new Optimizer[] {
 				new OxLxOptimizer(),
 				new BpCmOptimizer(),
-				new NxOptimizer()
+				NxStateOptimizer.createNx()
 		} : new Optimizer[] {
 				new OxLxOptimizer(),
 				new BpCmOptimizer()
@@ -9,6 +9,7 @@ import java.util.Map;
 
 /**
  * Nx + BpCm統合版
+ * 最適化には同じ出力の NxStateOptimizer を使用します. このクラスは比較検証用です.
  */
 public final class NxBpCmOptimizer extends NxOptimizer {
 	/**
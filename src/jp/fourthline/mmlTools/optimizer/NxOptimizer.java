@@ -17,6 +17,7 @@ import jp.fourthline.mmlTools.core.MMLException;
 
 /**
  * Nxを使用した最適化.
+ * 最適化には同じ出力の NxStateOptimizer を使用します. このクラスは比較検証用です.
  */
 public class NxOptimizer implements MMLStringOptimizer.Optimizer {
 
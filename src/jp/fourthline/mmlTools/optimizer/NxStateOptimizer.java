@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jp.fourthline.mmlTools.core.MMLException;
+import jp.fourthline.mmlTools.core.MMLTokenizer;
+import jp.fourthline.mmlTools.core.MelodyParser;
+import jp.fourthline.mmlTools.core.ParserWarn3ML;
+
+
+/**
+ * NxOptimizer, NxBpCmOptimizer と同じ出力を, 候補の文字列をコピーせずに求める最適化.
+ * <pre>
+ * 候補は (直前のオクターブ, MML) の状態で, MMLは追加した文字列と前の候補へのリンクで表す.
+ * ノートごとに候補を複製しても共有部分はコピーされないため, 全体でトークン数に比例した時間で処理する.
+ * 候補の選択順 (同じ長さの場合の優先順位) は元の実装と同じにする.
+ * </pre>
+ */
+public final class NxStateOptimizer implements MMLStringOptimizer.Optimizer {
+
+	/**
+	 * 候補のMML. 末尾に追加した文字列と, それより前の部分へのリンク.
+	 */
+	private static final class Chain {
+		private final Chain prev;
+		private final String text;
+		private final int length;
+
+		private Chain(Chain prev, String text) {
+			this.prev = prev;
+			this.text = text;
+			this.length = (prev == null) ? text.length() : prev.length + text.length();
+		}
+
+		private Chain append(String s) {
+			return s.isEmpty() ? this : new Chain(this, s);
+		}
+
+		@Override
+		public String toString() {
+			char[] c = new char[length];
+			for (Chain chain = this; chain != null; chain = chain.prev) {
+				chain.text.getChars(0, chain.text.length(), c, chain.length - chain.text.length());
+			}
+			return new String(c);
+		}
+	}
+
+	private static final class State {
+		private final Chain chain;
+		private final int prevOct;
+		private final int nCount;
+
+		private State(Chain chain, int prevOct, int nCount) {
+			this.chain = chain;
+			this.prevOct = prevOct;
+			this.nCount = nCount;
+		}
+
+		private boolean lessThan(State o) {
+			return (chain.length < o.chain.length) || ((chain.length == o.chain.length) && (nCount < o.nCount));
+		}
+	}
+
+	private final boolean bpcm;
+	private final boolean disableNopt;
+
+	private int octave = 4;
+	private final MelodyParser parser = new MelodyParser("");
+	private List<State> stateList = new ArrayList<>();
+
+	/** BpCmのパターン構築用のMap<Octave, MML>. 候補の順序を NxBpCmOptimizer と同じにするためHashMapを使用する. */
+	private final Map<Integer, Chain> map = new HashMap<>();
+
+	private NxStateOptimizer(boolean bpcm, boolean disableNopt, int octave, String initStr) {
+		this.bpcm = bpcm;
+		this.disableNopt = disableNopt;
+		this.octave = octave;
+		stateList.add(new State(new Chain(null, initStr), octave, 0));
+		parser.setOctave(octave);
+	}
+
+	/**
+	 * NxOptimizer と同じ出力の最適化.
+	 */
+	public static NxStateOptimizer createNx() {
+		return new NxStateOptimizer(false, false, 4, "");
+	}
+
+	/**
+	 * NxBpCmOptimizer と同じ出力の最適化.
+	 * @param disableNopt
+	 */
+	public static NxStateOptimizer createNxBpCm(boolean disableNopt) {
+		return new NxStateOptimizer(true, disableNopt, 4, "");
+	}
+
+	/**
+	 * NxBpCmOptimizer と同じ出力の最適化.
+	 * @param octave      initStr後のオクターブ
+	 * @param initStr     最適化済みの先頭部分
+	 * @param disableNopt
+	 */
+	public static NxStateOptimizer createNxBpCm(int octave, String initStr, boolean disableNopt) {
+		return new NxStateOptimizer(true, disableNopt, octave, initStr);
+	}
+
+	private static State minState(List<State> list) {
+		State min = list.get(0);
+		for (State state : list) {
+			if (state.lessThan(min)) {
+				min = state;
+			}
+		}
+		return min;
+	}
+
+	private int noteNumber() {
+		int noteNumber = parser.getNoteNumber();
+		return ( (noteNumber < 0) || (noteNumber > 96) ) ? -1 : noteNumber;
+	}
+
+	/**
+	 * NxOptimizer: 通常パターンの最小の候補と, (長さ指定がなければ) nパターンの最小の候補を残す.
+	 */
+	private void nxNotePattern(String token, String noteLength) {
+		State min = null;
+		for (State state : stateList) {
+			String s = OxLxOptimizer.getOctaveString(state.prevOct, octave) + token;
+			State next = new State(state.chain.append(s), octave, state.nCount);
+			if ( (min == null) || next.lessThan(min) ) {
+				min = next;
+			}
+		}
+
+		State nMin = null;
+		int noteNumber = noteNumber();
+		if ( (noteLength.length() == 0) && (noteNumber >= 0) ) {
+			String s = "n" + noteNumber;
+			for (State state : stateList) {
+				// NxOptimizerでは, 複製した候補のnCountは 0 から数えなおす.
+				State next = new State(state.chain.append(s), state.prevOct, 1);
+				if ( (nMin == null) || next.lessThan(nMin) ) {
+					nMin = next;
+				}
+			}
+		}
+
+		stateList = new ArrayList<>(2);
+		stateList.add(min);
+		if (nMin != null) {
+			stateList.add(nMin);
+		}
+	}
+
+	private void addBpCmPattern(State state, int nextOctave, String token) {
+		String s = (state.prevOct != nextOctave) ? OxLxOptimizer.getOctaveString(state.prevOct, nextOctave) + token : token;
+		Chain t = map.get(nextOctave);
+		if ( (t == null) || (t.length > state.chain.length + s.length()) ) {
+			map.put(nextOctave, state.chain.append(s));
+		}
+	}
+
+	/**
+	 * NxBpCmOptimizer: 次のオクターブごとに最小の候補を残す.
+	 */
+	private void nxBpCmNotePattern(String token, String noteName, String noteLength) {
+		for (State state : stateList) {
+			// 通常パターン
+			addBpCmPattern(state, octave, token);
+			if (noteName.equals("b")) {
+				// b -> <c- パターン
+				addBpCmPattern(state, octave+1, "c-" + noteLength);
+			} else if (noteName.equals("c")) {
+				// c -> >b+ パターン
+				addBpCmPattern(state, octave-1, "b+" + noteLength);
+			}
+			if ( (!disableNopt) && (state.prevOct != octave) && (noteLength.length() == 0) ) {
+				// nパターン
+				int noteNumber = noteNumber();
+				if (noteNumber >= 0) {
+					addBpCmPattern(state, state.prevOct, "n" + noteNumber);
+				}
+			}
+		}
+
+		stateList = new ArrayList<>(map.size());
+		map.forEach((key, chain) -> stateList.add(new State(chain, key, 0)));
+		map.clear();
+	}
+
+	private void addToken(String token) {
+		stateList.replaceAll(t -> new State(t.chain.append(token), t.prevOct, t.nCount));
+	}
+
+	private void doToken(String token) {
+		String[] s = MMLTokenizer.noteNames(token);
+		char firstC = Character.toLowerCase(s[0].charAt(0));
+		if ( (firstC >= 'a') && (firstC <= 'g') ) {
+			if (bpcm) {
+				nxBpCmNotePattern(token, s[0], s[1]);
+			} else {
+				nxNotePattern(token, s[1]);
+			}
+		} else if (firstC == '>') {
+			octave++;
+		} else if (firstC == '<') {
+			octave--;
+		} else if (firstC == 'o') {
+			octave = Integer.parseInt(s[1]);
+		} else {
+			addToken(token);
+		}
+	}
+
+	@Override
+	public void nextToken(String token) {
+		try {
+			parser.noteGT(token);
+		} catch (MMLException | ParserWarn3ML e) {}
+
+		doToken(token);
+	}
+
+	/**
+	 * 最小の候補の長さを取得します. (文字列は作成しない)
+	 */
+	public int getMinLength() {
+		return minState(stateList).chain.length;
+	}
+
+	@Override
+	public String getMinString() {
+		return minState(stateList).chain.toString();
+	}
+}
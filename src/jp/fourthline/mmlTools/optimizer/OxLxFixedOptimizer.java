@@ -116,9 +116,9 @@ public final class OxLxFixedOptimizer extends OxLxOptimizer {
 
 		private static int calcSubNxBpCmOptLength(String mml, int commonLen, int octave, boolean disableNopt) {
 			String initStr = mml.substring(0, commonLen);
-			NxBpCmOptimizer optimizer = new NxBpCmOptimizer(octave, initStr, disableNopt);
+			NxStateOptimizer optimizer = NxStateOptimizer.createNxBpCm(octave, initStr, disableNopt);
 			new MMLTokenizer(mml.substring(commonLen)).forEachRemaining(optimizer::nextToken);
-			return optimizer.getMinString().length();
+			return optimizer.getMinLength();
 		}
 
 		@Override
@@ -98,7 +98,7 @@ public final class MMLEventParser implements Iterator<MMLEvent> {
 							prevNoteEvent.setTuningNote(TuningBase.getInstance(tick));
 						}
 						prevNoteEvent.setTick( prevTick + tick);
-						prevNoteEvent.getIndexOfMMLString()[1] = tokenizer.getIndex()[1];
+						prevNoteEvent.setIndexOfMMLStringEnd(tokenizer.getIndex()[1]);
 					} else if (parser.getNoteNumber() >= -1) {
 						nextItem = prevNoteEvent;
 						prevNoteEvent = new MMLNoteEvent(parser.getNoteNumber(), tick, totalTick, volume);
@@ -5,8 +5,10 @@
 package jp.fourthline.mmlTools.parser;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +22,18 @@ public final class SectionContents {
 	private final String name;
 	private final StringBuilder buffer = new StringBuilder();
 
+	/**
+	 * セクション内の1行を受け取るハンドラ.
+	 */
+	@FunctionalInterface
+	public interface LineHandler {
+		/**
+		 * @param sectionName  "[section-name]"
+		 * @param lineText     改行を含まない行
+		 */
+		void line(String sectionName, String lineText);
+	}
+
 	private SectionContents(String name) {
 		this.name = name;
 	}
@@ -71,4 +85,26 @@ public final class SectionContents {
 
 		return contentsList;
 	}
+
+	/**
+	 * Readerから1行ずつ読み込み, セクション内の行をハンドラへ渡します. (セクションごとのバッファは作りません)
+	 * 最初のセクションより前の行は無視します.
+	 * @param reader
+	 * @param handler
+	 * @return セクションが1つ以上あれば true
+	 * @throws IOException
+	 */
+	public static boolean readSections(Reader reader, LineHandler handler) throws IOException {
+		BufferedReader bufferedReader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+		String sectionName = null;
+		String lineText;
+		while ( (lineText = bufferedReader.readLine()) != null ) {
+			if (lineText.startsWith("[")) {
+				sectionName = lineText;
+			} else if (sectionName != null) {
+				handler.line(sectionName, lineText);
+			}
+		}
+		return sectionName != null;
+	}
 }
@@ -4,28 +4,84 @@
 
 package jp.fourthline.mmlTools.parser;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
 
+/**
+ * 行の先頭のキーで処理を振り分けます.
+ * "key=" の形式のキーは, 行の最初の '=' までをトークンとしてハッシュで検索します.
+ * それ以外のキーは前方一致で判定します.
+ */
 public final class TextParser {
-	private final Pattern lineSplit = Pattern.compile("\n");
-	private final HashMap<String, Consumer<String>> map = new HashMap<>();
+	/** 末尾にのみ '=' を含むキー */
+	private final HashMap<String, Consumer<String>> tokenMap = new HashMap<>();
+	/** 前方一致で判定するキー */
+	private final List<String> prefixKeys = new ArrayList<>();
+	private final List<Consumer<String>> prefixFuncs = new ArrayList<>();
 
 	public TextParser() {}
 	public TextParser pattern(String s, Consumer<String> func) {
-		map.put(s, func);
+		if (s.indexOf('=') == s.length() - 1) {
+			tokenMap.put(s, func);
+		} else {
+			int index = prefixKeys.indexOf(s);
+			if (index >= 0) {
+				prefixFuncs.set(index, func);
+			} else {
+				prefixKeys.add(s);
+				prefixFuncs.add(func);
+			}
+		}
 		return this;
 	}
 
+	/**
+	 * 1行を処理します.
+	 * @param lineText  改行を含まない行
+	 */
+	public void parseLine(String lineText) {
+		int index = lineText.indexOf('=');
+		if (index >= 0) {
+			Consumer<String> func = tokenMap.get(lineText.substring(0, index+1));
+			if (func != null) {
+				func.accept( lineText.substring(index+1) );
+			}
+		}
+		for (int i = 0; i < prefixKeys.size(); i++) {
+			String key = prefixKeys.get(i);
+			if (lineText.startsWith(key)) {
+				prefixFuncs.get(i).accept( lineText.substring(key.length()) );
+			}
+		}
+	}
+
 	public void parse(String text) {
-		lineSplit.splitAsStream(text).forEachOrdered((lineText) -> {
-			map.keySet().forEach(key -> {
-				if (lineText.startsWith(key)) {
-					map.get(key).accept( lineText.substring(key.length()) );
-					return;
-				}
-			});
-		});
+		int start = 0;
+		int end;
+		while ( (end = text.indexOf('\n', start)) >= 0 ) {
+			parseLine(text.substring(start, end));
+			start = end + 1;
+		}
+		if (start < text.length()) {
+			parseLine(text.substring(start));
+		}
+	}
+
+	/**
+	 * Readerから1行ずつ読み込んで処理します.
+	 * @param reader
+	 * @throws IOException
+	 */
+	public void parse(Reader reader) throws IOException {
+		BufferedReader bufferedReader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+		String lineText;
+		while ( (lineText = bufferedReader.readLine()) != null ) {
+			parseLine(lineText);
+		}
 	}
 }
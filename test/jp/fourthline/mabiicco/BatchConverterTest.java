@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jp.fourthline.mabiicco.BatchConverter.Format;
+import jp.fourthline.mmlTools.MMLScore;
+import jp.fourthline.mmlTools.MMLTrack;
+
+public final class BatchConverterTest {
+
+	private Path dir;
+
+	@Before
+	public void setup() throws IOException {
+		BatchConverter.initialize();
+		dir = Files.createTempDirectory("batchConverterTest");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		try (Stream<Path> stream = Files.walk(dir)) {
+			stream.sorted(Comparator.reverseOrder()).forEach(t -> t.toFile().delete());
+		}
+	}
+
+	private static MMLScore createScore(String mml) throws Exception {
+		MMLScore score = new MMLScore();
+		MMLTrack track = new MMLTrack().setMML(mml);
+		track.setTrackName("Track1");
+		score.addTrack(track);
+		score.generateAll();
+		return score;
+	}
+
+	private static void writeFile(Path path, MMLScore score, Format format) throws Exception {
+		Files.createDirectories(path.getParent());
+		try (OutputStream outputStream = Files.newOutputStream(path)) {
+			BatchConverter.write(score, format, outputStream);
+		}
+	}
+
+	@Test
+	public void testParseAndWrite() throws Exception {
+		MMLScore score = createScore("MML@t150cde,eg,c;");
+		Path path = dir.resolve("score.mmi");
+		writeFile(path, score, Format.MMI);
+
+		MMLScore readScore = BatchConverter.parse(path);
+		assertEquals(1, readScore.getTrackCount());
+		assertEquals(score.getTrack(0).getMabiMML(), readScore.generateAll().getTrack(0).getMabiMML());
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		BatchConverter.write(score, Format.MABI, outputStream);
+		String expect = "Track1" + System.lineSeparator() + score.getTrack(0).getMabiMML() + System.lineSeparator();
+		assertEquals(expect, outputStream.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = IOException.class)
+	public void testParseNoTrack() throws Exception {
+		Path path = dir.resolve("empty.mmi");
+		writeFile(path, new MMLScore(), Format.MMI);
+		BatchConverter.parse(path);
+	}
+
+	/**
+	 * 拡張子だけが異なる入力ファイルは, それぞれ別のファイルに出力されること.
+	 */
+	@Test
+	public void testRun() throws Exception {
+		MMLScore score = createScore("MML@cde;");
+		Path inDir = dir.resolve("in");
+		writeFile(inDir.resolve("sub/song.mmi"), score, Format.MMI);
+		writeFile(inDir.resolve("sub/song.mid"), score, Format.MID);
+		Path outDir = dir.resolve("out");
+
+		assertEquals(0, BatchConverter.run(new String[] { "-f", "mmi,mabi", "-j", "2", "-o", outDir.toString(), inDir.toString() }));
+		assertTrue(Files.exists(outDir.resolve("sub/song.mmi.mmi")));
+		assertTrue(Files.exists(outDir.resolve("sub/song.mmi.mabi.txt")));
+		assertTrue(Files.exists(outDir.resolve("sub/song.mid.mmi")));
+		assertTrue(Files.exists(outDir.resolve("sub/song.mid.mabi.txt")));
+		assertEquals(score.getTrack(0).getMabiMML(), BatchConverter.parse(outDir.resolve("sub/song.mmi.mmi")).generateAll().getTrack(0).getMabiMML());
+
+		// 出力先に入力ディレクトリを指定しても, 入力ファイルは上書きしない.
+		byte[] source = Files.readAllBytes(inDir.resolve("sub/song.mmi"));
+		assertEquals(0, BatchConverter.run(new String[] { "-f", "mmi", "-o", inDir.toString(), inDir.toString() }));
+		assertArrayEquals(source, Files.readAllBytes(inDir.resolve("sub/song.mmi")));
+		assertTrue(Files.exists(inDir.resolve("sub/song.mmi.mmi")));
+	}
+
+	/**
+	 * 出力先が重なるファイルはエラーになること.
+	 */
+	@Test
+	public void testRunConflict() throws Exception {
+		writeFile(dir.resolve("a/song.mmi"), createScore("MML@c;"), Format.MMI);
+		writeFile(dir.resolve("b/song.mmi"), createScore("MML@d;"), Format.MMI);
+		writeFile(dir.resolve("b/song.mmi.mmi"), createScore("MML@e;"), Format.MMI);
+		Path outDir = dir.resolve("out");
+
+		assertEquals(1, BatchConverter.run(new String[] { "-f", "mmi", "-o", outDir.toString(), dir.resolve("a/song.mmi").toString(), dir.resolve("b/song.mmi").toString() }));
+		assertEquals(createScore("MML@c;").getTrack(0).getMabiMML(), BatchConverter.parse(outDir.resolve("song.mmi.mmi")).generateAll().getTrack(0).getMabiMML());
+
+		// song.mmi の出力先は入力ファイルの song.mmi.mmi
+		assertEquals(1, BatchConverter.run(new String[] { "-f", "mmi", "-o", dir.resolve("b").toString(), dir.resolve("b").toString() }));
+		assertEquals(createScore("MML@e;").getTrack(0).getMabiMML(), BatchConverter.parse(dir.resolve("b/song.mmi.mmi")).generateAll().getTrack(0).getMabiMML());
+	}
+
+	@Test
+	public void testUsage() {
+		assertEquals(2, BatchConverter.run(new String[] {}));
+		assertEquals(2, BatchConverter.run(new String[] { dir.toString() }));
+		assertEquals(2, BatchConverter.run(new String[] { "-o" }));
+		assertEquals(2, BatchConverter.run(new String[] { "-f", "wav", "-o", dir.toString(), dir.toString() }));
+		assertEquals(2, BatchConverter.run(new String[] { "-j", "x", "-o", dir.toString(), dir.toString() }));
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class JsonLineTest {
+
+	@Test
+	public void testParse() {
+		JsonLine obj = JsonLine.parse(" {\"id\": 12, \"op\" : \"rank\", \"mml\":\"MML@a\\\"b\\\\c\\n\\u0041;\", \"x\":-1.5e2, \"b\":true, \"n\":null} ");
+		assertEquals(12L, obj.get("id"));
+		assertEquals(12, obj.getInt("id", 0));
+		assertEquals("rank", obj.getString("op"));
+		assertEquals("MML@a\"b\\c\nA;", obj.getString("mml"));
+		assertEquals(-150.0, obj.get("x"));
+		assertEquals(Boolean.TRUE, obj.get("b"));
+		assertNull(obj.get("n"));
+		assertEquals(-1, obj.getInt("none", -1));
+
+		assertNull(JsonLine.parse("{}").get("id"));
+	}
+
+	@Test
+	public void testToString() {
+		String s = new JsonLine().put("id", 1L).put("ok", true).put("result", "a\"b\\c\n\u0001").put("n", null).toString();
+		assertEquals("{\"id\":1,\"ok\":true,\"result\":\"a\\\"b\\\\c\\n\\u0001\",\"n\":null}", s);
+
+		JsonLine obj = JsonLine.parse(s);
+		assertEquals("a\"b\\c\n\u0001", obj.getString("result"));
+	}
+
+	@Test
+	public void testInvalid() {
+		String[] invalid = { "", "{", "{\"a\"}", "{\"a\":}", "{\"a\":1,}", "{\"a\":\"b}", "{\"a\":1} x", "[1]", "{\"a\":tru}" };
+		for (String s : invalid) {
+			try {
+				JsonLine.parse(s);
+				fail(s);
+			} catch (IllegalArgumentException e) {}
+		}
+	}
+}
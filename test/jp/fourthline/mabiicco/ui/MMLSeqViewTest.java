@@ -10,10 +10,12 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
@@ -32,6 +34,7 @@ import jp.fourthline.UseLoadingDLS;
 import jp.fourthline.mabiicco.MabiIccoProperties;
 import jp.fourthline.mabiicco.midi.InstType;
 import jp.fourthline.mabiicco.midi.MabiDLS;
+import jp.fourthline.mabiicco.ui.editor.RecoveryJournal;
 import jp.fourthline.mmlTools.MMLEventList;
 import jp.fourthline.mmlTools.MMLNoteEvent;
 import jp.fourthline.mmlTools.MMLScore;
@@ -76,7 +79,13 @@ public final class MMLSeqViewTest extends UseLoadingDLS {
 	}
 
 	@Test
-	public void testUndoRedo() {
+	public void testUndoRedo() throws IOException {
+		File journalFile = File.createTempFile("recovery", ".journal");
+		File recoveryFile = File.createTempFile("recovery", ".journal");
+		journalFile.delete();
+		recoveryFile.delete();
+		RecoveryJournal journal = RecoveryJournal.lock(journalFile);
+		obj.setRecoveryJournal(journal);
 		MMLScore score = new MMLScore();
 
 		// rank9 のMML生成.
@@ -130,7 +139,8 @@ public final class MMLSeqViewTest extends UseLoadingDLS {
 		// Rank表記は generate後.
 		assertEquals(rank9, obj.getSelectedTrack().mmlRankFormat());
 		obj.updateActivePart(true);
-		String recoveryData = obj.getRecoveryData();
+		journal.flush();
+		Files.copy(journalFile.toPath(), recoveryFile.toPath());
 
 		// redo実行.
 		obj.redo();
@@ -145,15 +155,20 @@ public final class MMLSeqViewTest extends UseLoadingDLS {
 		assertEquals(rank1, obj.getSelectedTrack().mmlRankFormat());
 
 		// Rank9のデータへリカバリー.
-		System.out.println(recoveryData);
-		obj.recovery(recoveryData);
-		System.out.println(obj.getRecoveryData());
+		RecoveryJournal recovery = RecoveryJournal.lock(recoveryFile);
+		assertTrue(recovery.exists());
+		assertTrue(obj.recovery(recovery));
 		obj.updateActivePart(true);
-		System.out.println(recoveryData);
-		System.out.println(obj.getRecoveryData());
 		assertEquals(1, obj.getMMLScore().getTrackCount());
 		assertEquals(rank9, obj.getSelectedTrack().mmlRankFormat());
-		assertEquals(recoveryData, obj.getRecoveryData());
+		assertEquals(true, obj.getFileState().canRedo());
+		assertEquals(false, obj.getFileState().canUndo());
+		assertEquals(false, obj.getFileState().isModified());
+
+		journal.close();
+		recovery.close();
+		assertFalse(journalFile.exists());
+		assertFalse(recoveryFile.exists());
 	}
 
 	@Test
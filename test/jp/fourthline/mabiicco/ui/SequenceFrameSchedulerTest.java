@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import jp.fourthline.mabiicco.ui.SequenceFrameScheduler.PositionEstimator;
+
+public final class SequenceFrameSchedulerTest {
+
+	private static final long MS = 1000000;
+
+	/**
+	 * t120, 96tick/四分音符 (1msあたり0.192tick)
+	 */
+	private static final double TICKS_PER_US = 96.0 / 500000;
+
+	@Test
+	public void testEstimate() {
+		PositionEstimator estimator = new PositionEstimator();
+		assertEquals(96, estimator.estimate(500000, 96, 0, TICKS_PER_US));
+		// シーケンサの位置が変わらない間は経過時間で補間する.
+		assertEquals(96 + 9, estimator.estimate(500000, 96, 50 * MS, TICKS_PER_US));
+		// 補間は最大100msまで.
+		assertEquals(96 + 19, estimator.estimate(500000, 96, 500 * MS, TICKS_PER_US));
+	}
+
+	@Test
+	public void testEstimateMonotonic() {
+		PositionEstimator estimator = new PositionEstimator();
+		estimator.estimate(500000, 96, 0, TICKS_PER_US);
+		assertEquals(105, estimator.estimate(500000, 96, 50 * MS, TICKS_PER_US));
+		// 補間より遅れた位置が届いても戻らない.
+		assertEquals(105, estimator.estimate(520000, 100, 51 * MS, TICKS_PER_US));
+		assertEquals(109, estimator.estimate(520000, 100, 101 * MS, TICKS_PER_US));
+	}
+
+	@Test
+	public void testEstimateSeek() {
+		PositionEstimator estimator = new PositionEstimator();
+		estimator.estimate(500000, 96, 0, TICKS_PER_US);
+		estimator.estimate(500000, 96, 50 * MS, TICKS_PER_US);
+		// ループ再生などで位置が戻った場合はそのまま使う.
+		assertEquals(0, estimator.estimate(0, 0, 51 * MS, TICKS_PER_US));
+	}
+
+	@Test
+	public void testNextDelay() {
+		assertEquals(SequenceFrameScheduler.FRAME_INTERVAL, SequenceFrameScheduler.nextDelay(0));
+		assertEquals(SequenceFrameScheduler.FRAME_INTERVAL - 5, SequenceFrameScheduler.nextDelay(5));
+		assertEquals(40, SequenceFrameScheduler.nextDelay(40));
+		assertEquals(SequenceFrameScheduler.MAX_FRAME_INTERVAL - 150, SequenceFrameScheduler.nextDelay(150));
+		assertEquals(0, SequenceFrameScheduler.nextDelay(300));
+	}
+
+	@Test
+	public void testFrameTime() {
+		SequenceFrameScheduler scheduler = new SequenceFrameScheduler(null, t -> {}, () -> {});
+		assertEquals(0, scheduler.getFrameCount());
+		assertEquals(0, scheduler.getAverageFrameTimeUs());
+
+		assertEquals(SequenceFrameScheduler.FRAME_INTERVAL - 2, scheduler.recordFrame(2 * MS));
+		scheduler.recordFrame(6 * MS);
+		scheduler.recordFrame(1 * MS);
+		assertEquals(3, scheduler.getFrameCount());
+		assertEquals(3000, scheduler.getAverageFrameTimeUs());
+		assertEquals(6000, scheduler.getMaxFrameTimeUs());
+	}
+}
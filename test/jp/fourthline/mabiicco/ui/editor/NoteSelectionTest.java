@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui.editor;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import jp.fourthline.mmlTools.MMLEventList;
+import jp.fourthline.mmlTools.MMLNoteEvent;
+
+public final class NoteSelectionTest {
+
+	@Test
+	public void testAdd() {
+		MMLEventList eventList = new MMLEventList("cdef");
+		List<MMLNoteEvent> notes = eventList.getMMLNoteEventList();
+		NoteSelection selection = new NoteSelection();
+		selection.add(notes.get(2));
+		selection.add(notes.get(0));
+		selection.add(notes.get(3));
+		assertFalse(selection.add(notes.get(0)));
+
+		// tickOffset順
+		assertEquals(List.of(notes.get(0), notes.get(2), notes.get(3)), selection.list());
+		assertTrue(selection.contains(notes.get(2)));
+		assertFalse(selection.contains(notes.get(1)));
+		// 内容が同じでも別のノートは選択されていない.
+		assertFalse(selection.contains(notes.get(2).clone()));
+	}
+
+	@Test
+	public void testMoveAndApply() {
+		MMLEventList eventList = new MMLEventList("cdef");
+		List<MMLNoteEvent> notes = eventList.getMMLNoteEventList();
+		NoteSelection selection = new NoteSelection();
+		selection.add(notes.get(0));
+		selection.add(notes.get(1));
+
+		// 移動はdetach時の位置が基準.
+		selection.detach();
+		selection.move(2, 96);
+		selection.move(1, 384);
+		assertTrue(selection.isDetached(notes.get(0)));
+		assertEquals(384, selection.get(0).getTickOffset());
+		selection.applyTo(eventList);
+
+		assertFalse(selection.isDetached(selection.get(0)));
+		assertEquals(new MMLEventList("r2efc+d+").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
+
+	@Test
+	public void testRevert() {
+		MMLEventList eventList = new MMLEventList("cdef");
+		List<MMLNoteEvent> notes = eventList.getMMLNoteEventList();
+		NoteSelection selection = new NoteSelection();
+		selection.add(notes.get(1));
+		selection.detach();
+		selection.move(-2, -96);
+		selection.revert();
+		assertEquals(new MMLEventList("cdef").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
+
+	@Test
+	public void testTranspose() {
+		MMLEventList eventList = new MMLEventList("o8cb");
+		NoteSelection selection = new NoteSelection();
+		selection.addAll(eventList.getMMLNoteEventList());
+		assertFalse(selection.transpose(1));
+		assertEquals(new MMLEventList("o8cb").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+		assertTrue(selection.transpose(-12));
+		assertEquals(new MMLEventList("o7cb").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
+
+	@Test
+	public void testDelete() {
+		MMLEventList eventList = new MMLEventList("cdef");
+		List<MMLNoteEvent> notes = eventList.getMMLNoteEventList();
+		NoteSelection selection = new NoteSelection();
+		selection.add(notes.get(3));
+		selection.add(notes.get(1));
+		selection.deleteFrom(eventList);
+		assertEquals(new MMLEventList("cre").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mabiicco.ui.editor;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jp.fourthline.mabiicco.ui.IMMLManager;
+import jp.fourthline.mmlTools.MMLScore;
+import jp.fourthline.mmlTools.MMLTrack;
+
+public class RecoveryJournalTest {
+
+	private File journalFile;
+	private File copyFile;
+	private RecoveryJournal journal;
+
+	private MMLScore score;
+	private MMLScoreUndoEdit undoEdit;
+
+	/**
+	 * 指定したスコアを編集対象とする IMMLManager. (MMLScoreUndoEdit は getMMLScore() のみ使用する)
+	 */
+	private static IMMLManager mmlManager(MMLScore score) {
+		return (IMMLManager) Proxy.newProxyInstance(IMMLManager.class.getClassLoader(), new Class<?>[] { IMMLManager.class },
+				(proxy, method, args) -> method.getName().equals("getMMLScore") ? score : null);
+	}
+
+	private static byte[] state(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Before
+	public void setup() throws IOException {
+		journalFile = File.createTempFile("recoveryJournalTest", ".journal");
+		copyFile = File.createTempFile("recoveryJournalTest", ".journal");
+		journalFile.delete();
+		copyFile.delete();
+		journal = RecoveryJournal.lock(journalFile);
+
+		score = new MMLScore();
+		score.addTrack(new MMLTrack().setMML("MML@cde;"));
+		undoEdit = new MMLScoreUndoEdit(mmlManager(score));
+		undoEdit.initState();
+		undoEdit.setJournal(journal);
+	}
+
+	@After
+	public void cleanup() {
+		journal.close();
+		copyFile.delete();
+		new File(journalFile.getPath() + ".new").delete();
+		assertFalse(new File(journalFile.getPath() + ".lock").exists());
+		assertFalse(new File(copyFile.getPath() + ".lock").exists());
+	}
+
+	private void edit(String mml) {
+		score.getTrack(0).setMML(mml);
+		undoEdit.saveState();
+	}
+
+	private RecoveryJournal copyJournal() throws IOException {
+		journal.flush();
+		Files.copy(journalFile.toPath(), copyFile.toPath());
+		RecoveryJournal copy = RecoveryJournal.lock(copyFile);
+		assertNotNull(copy);
+		assertTrue(copy.exists());
+		return copy;
+	}
+
+	/**
+	 * ジャーナルから復元した MMLScoreUndoEdit が, 記録した MMLScoreUndoEdit と同じ undo/redo 状態であること.
+	 * @return 復元した undo の数
+	 */
+	private int assertRecover(RecoveryJournal copy) {
+		MMLScore recoveredScore = new MMLScore();
+		MMLScoreUndoEdit recovered = new MMLScoreUndoEdit(mmlManager(recoveredScore));
+		assertTrue(recovered.recover(copy));
+		assertEquals(undoEdit.isModified(), recovered.isModified());
+
+		undoEdit.revertState();
+		recovered.revertState();
+		assertArrayEquals(score.getObjectState(), recoveredScore.getObjectState());
+		int count = 0;
+		while (undoEdit.canUndo()) {
+			assertTrue(recovered.canUndo());
+			undoEdit.undo();
+			recovered.undo();
+			assertArrayEquals(score.getObjectState(), recoveredScore.getObjectState());
+			count++;
+		}
+		assertFalse(recovered.canUndo());
+		while (undoEdit.canRedo()) {
+			assertTrue(recovered.canRedo());
+			undoEdit.redo();
+			recovered.redo();
+			assertArrayEquals(score.getObjectState(), recoveredScore.getObjectState());
+		}
+		assertFalse(recovered.canRedo());
+		return count;
+	}
+
+	@Test
+	public void testLock() {
+		assertNull(RecoveryJournal.lock(journalFile));
+		assertFalse(journal.exists());
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		journal.setFileName("/tmp/サンプル.mmi");
+		for (String s : new String[] { "MML@cdef;", "MML@cdefg;", "MML@ab,c;", "MML@;" }) {
+			edit(s);
+		}
+		undoEdit.undo();
+		undoEdit.undo();
+		undoEdit.redo();
+		undoEdit.setOriginalBase();
+
+		RecoveryJournal copy = copyJournal();
+		assertEquals(3, assertRecover(copy));
+		assertEquals("/tmp/サンプル.mmi", copy.getRecoveredFileName());
+		copy.close();
+		assertFalse(copyFile.exists());
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		for (int i = 1; i < 300; i++) {
+			edit("MML@" + "cdefgab".charAt(i % 7) + (1 + i % 64) + ";");
+		}
+		undoEdit.undo();
+
+		RecoveryJournal copy = copyJournal();
+		// 圧縮後のレコードのみ.
+		assertTrue(Files.readAllLines(copyFile.toPath()).size() < 200);
+		assertRecover(copy);
+		copy.close();
+	}
+
+	/**
+	 * 圧縮できなかった場合も, 元のファイルに記録を続けること.
+	 */
+	@Test
+	public void testCompactFailure() throws IOException {
+		File newFile = new File(journalFile.getPath() + ".new");
+		journal.flush();
+		// 新しいファイルを作成できない.
+		assertTrue(newFile.mkdir());
+		for (int i = 1; i < 250; i++) {
+			edit("MML@" + "cdefgab".charAt(i % 7) + (1 + i % 64) + ";");
+		}
+		undoEdit.undo();
+
+		RecoveryJournal copy = copyJournal();
+		assertTrue(Files.readAllLines(copyFile.toPath()).size() > 200);
+		assertRecover(copy);
+		copy.close();
+	}
+
+	@Test
+	public void testBrokenRecord() throws IOException {
+		edit("MML@cXYZde;");
+
+		RecoveryJournal copy = copyJournal();
+		// 書き込み途中で終了した行.
+		try (FileOutputStream out = new FileOutputStream(copyFile, true)) {
+			out.write("P 3 4 10 QUJD".getBytes(StandardCharsets.US_ASCII));
+		}
+		assertEquals(1, assertRecover(copy));
+		copy.close();
+	}
+
+	@Test
+	public void testDelta() throws IOException {
+		String[][] patterns = {
+				{ "abc", "abc" },
+				{ "abc", "" },
+				{ "", "abc" },
+				{ "aaaa", "aaaaaa" },
+				{ "aaaaaa", "aaaa" },
+				{ "abcabc", "abXc" },
+		};
+		for (String[] p : patterns) {
+			var writer = new StringWriter();
+			RecoveryJournal.writeDelta(writer, state(p[0]), state(p[1]));
+			byte[] result = RecoveryJournal.applyDelta(state(p[0]), ("P " + writer).split(" ", -1));
+			assertEquals(p[1], new String(result, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * ノート, トラック, スコアのフィンガープリント.
+ */
+public final class ContentHashTest {
+
+	@Test
+	public void testEventListFingerprint() {
+		MMLEventList eventList = new MMLEventList("c4d8.&d16v12e2r4f1&f4o5g+64");
+		assertEquals(eventList.fingerprint(), new MMLEventList("c4d8.&d16v12e2r4f1&f4o5g+64").fingerprint());
+		assertEquals(eventList.fingerprint(), eventList.clone().fingerprint());
+
+		MMLEventList eventList2 = new MMLEventList("c4d8.&d16v12e2r4f1&f4o5g+32");
+		assertNotEquals(eventList.fingerprint(), eventList2.fingerprint());
+	}
+
+	/**
+	 * 保存内容が同じであればフィンガープリントが一致し, 変更すれば変わること.
+	 */
+	@Test
+	public void testScoreFingerprint() throws Exception {
+		MMLScore score = new MMLScore();
+		MMLTrack track = new MMLTrack().setMML("MML@at150aa1,bbb,ccc,dd1;");
+		track.setTrackName("track1");
+		score.addTrack(track);
+		score.getMarkerList().add(new Marker("marker1", 96));
+		long fingerprint = score.fingerprint();
+
+		MMLScore score2 = new MMLScore();
+		score2.putObjectState(score.getObjectState());
+		assertEquals(fingerprint, score2.fingerprint());
+		assertEquals(fingerprint, score.clone().fingerprint());
+
+		track.setProgram(4);
+		assertNotEquals(fingerprint, score.fingerprint());
+		track.setProgram(0);
+		assertEquals(fingerprint, score.fingerprint());
+
+		track.getMMLEventAtIndex(1).getMMLNoteEventList().get(0).setVelocity(4);
+		assertNotEquals(fingerprint, score.fingerprint());
+		track.setMML("MML@at150aa1,bbb,ccc,dd1;");
+		assertEquals(fingerprint, score.fingerprint());
+
+		score.getMarkerList().get(0).setName("marker2");
+		assertNotEquals(fingerprint, score.fingerprint());
+	}
+}
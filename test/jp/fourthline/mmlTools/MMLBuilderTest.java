@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * テンポ補正文字の出力.
+ * 期待値は, 出力済みMMLを再Parseして補正文字の位置を求めていた以前のMMLBuilderの出力です.
+ */
+public final class MMLBuilderTest {
+
+	@After
+	public void cleanup() {
+		MMLBuilder.setMMLVZeroTempo(true);
+	}
+
+	/**
+	 * @param tempoMML      テンポ指定用のMML
+	 * @param mml           出力するパート
+	 * @param relationMML   関連パート
+	 * @param startOffset
+	 * @param expectMabi    toMMLString(true, true, relationPart)
+	 * @param expectTempo   toMMLString(true, false, null)
+	 * @param expectMusicQ  toMMLStringMusicQ
+	 */
+	private static void checkBuild(String tempoMML, String mml, String relationMML, int startOffset,
+			String expectMabi, String expectTempo, String expectMusicQ) throws MMLExceptionList {
+		List<MMLTempoEvent> tempoList = new ArrayList<>();
+		new MMLEventList(tempoMML, tempoList);
+		MMLEventList eventList = new MMLEventList(mml, tempoList, startOffset);
+		List<MMLEventList> relationPart = List.of(new MMLEventList(relationMML, tempoList, startOffset));
+
+		assertEquals(expectMabi, MMLBuilder.create(eventList, startOffset).toMMLString(true, true, relationPart));
+		assertEquals(expectTempo, MMLBuilder.create(eventList, startOffset).toMMLString(true, false, null));
+		assertEquals(expectMusicQ, MMLBuilder.create(eventList, startOffset, MMLBuilder.INIT_OCT).toMMLStringMusicQ(new LinkedList<>(tempoList), relationPart));
+	}
+
+	/**
+	 * 休符中のテンポは, 最後の休符を関連パートと重ならない音符に置き換える.
+	 */
+	@Test
+	public void testTempoChar() throws MMLExceptionList {
+		checkBuild("", "c4r4t150d4", "", 0, "c4v0c4t150v8d4", "c4r4t150d4", "c4v0c4t150v8d4");
+		checkBuild("", "c4r4t150d4", "r4c4d4", 0, "c4v0e4t150v8d4", "c4r4t150d4", "c4v0e4t150v8d4");
+		// オクターブが異なる関連パートの音符は避けない.
+		checkBuild("", "c4r4t150d4", "r4o5c4d4", 0, "c4v0c4t150v8d4", "c4r4t150d4", "c4v0c4t150v8d4");
+		checkBuild("", "o6c4r2.t90d4", "o6r4c2.d4", 0, ">>c4v0e2.t90v8d4", ">>c4r2.t90d4", ">>c4v0e2.t90v8d4");
+		// 直前の音符が v0 であれば音量を戻さない.
+		checkBuild("", "v0c4r4t150d4", "r4c4d4", 0, "v0c4e4t150d4", "v0c4r4t150d4", "v0c4e4t150d4");
+	}
+
+	/**
+	 * 補正文字の位置は, 休符が複数に分かれる場合も最後の休符の先頭で判定する.
+	 */
+	@Test
+	public void testTempoCharLongRest() throws MMLExceptionList {
+		checkBuild("", "o2c8r1r1t200c", "o2r8r1c1c", 0, "<<c8r1v0d1t200v8c4", "<<c8r1r1t200c4", "<<c8r1v0d1t200v8c4");
+		checkBuild("", "c4r1t120r4t140d", "r4r1c4d4", 0, "c4v0d1t120e4t140v8d4", "c4r1t120r4t140d4", "c4v0d1t120e4t140v8d4");
+	}
+
+	@Test
+	public void testTempoCharStartOffset() throws MMLExceptionList {
+		checkBuild("", "c4r4t150d4", "r4c4e4", 96, "c4v0d4t150v8d4", "c4r4t150d4", "c4v0d4t150v8d4");
+	}
+
+	/**
+	 * 最後の音符より後のテンポ. 関連パートを含めた長さより前であれば出力する.
+	 */
+	@Test
+	public void testTempoCharEnd() throws MMLExceptionList {
+		checkBuild("r1r4t100", "c4", "c1c2", 0, "c4v0d1t100", "c4r1t100", "c4v0d1t100");
+		checkBuild("r1r4t100", "o5c4", "c1c2", 0, ">c4v0c1t100", ">c4r1t100", ">c4v0c1t100");
+	}
+
+	/**
+	 * 音符中のテンポ. mabiTempoでは分割した後半の音符を v0 にする.
+	 */
+	@Test
+	public void testTempoInNote() throws MMLExceptionList {
+		checkBuild("r4t130", "c1", "", 0, "c4t130v0c2.v8", "c4t130&c2.", "c1");
+		checkBuild("r4t130", "c1", "c4c4c4c4", 0, "c4t130v0c2.v8", "c4t130&c2.", "c1");
+	}
+
+	@Test
+	public void testNoVZeroTempo() throws MMLExceptionList {
+		MMLBuilder.setMMLVZeroTempo(false);
+		checkBuild("", "c4r4t150d4", "r4c4d4", 0, "c4r4t150d4", "c4r4t150d4", "c4r4t150d4");
+	}
+}
@@ -8,8 +8,10 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -750,4 +752,65 @@ public class MMLEventListTest {
 		}
 		assertEquals("r64e64", s);
 	}
+
+	private static List<MMLNoteEvent> randomNoteList(Random random, int count, int step) {
+		List<MMLNoteEvent> list = new ArrayList<>();
+		int offset = -step;
+		for (int i = 0; i < count; i++) {
+			offset += random.nextInt(step);
+			int tick = random.nextInt(step) - 1;
+			list.add(new MMLNoteEvent(random.nextInt(50) - 2, tick, offset, 8));
+		}
+		return list;
+	}
+
+	private static List<MMLNoteEvent> cloneList(List<MMLNoteEvent> list) {
+		List<MMLNoteEvent> newList = new ArrayList<>();
+		list.forEach(t -> newList.add(t.clone()));
+		return newList;
+	}
+
+	/**
+	 * まとめて追加した結果が, addMMLNoteEventを順に呼び出した場合と同じになること.
+	 */
+	@Test
+	public void testAddMMLNoteEvents() {
+		Random random = new Random(38);
+		for (int i = 0; i < 2000; i++) {
+			MMLEventList eventList1 = new MMLEventList("");
+			randomNoteList(random, random.nextInt(30), 48).forEach(eventList1::addMMLNoteEvent);
+			MMLEventList eventList2 = eventList1.clone();
+			List<MMLNoteEvent> addList1 = randomNoteList(random, random.nextInt(30), 96);
+			if (random.nextInt(8) == 0) {
+				Collections.shuffle(addList1, random);
+			}
+			List<MMLNoteEvent> addList2 = cloneList(addList1);
+
+			addList1.forEach(eventList1::addMMLNoteEvent);
+			eventList2.addMMLNoteEvents(addList2);
+			assertEquals(eventList1.getMMLNoteEventList(), eventList2.getMMLNoteEventList());
+			assertEquals(addList1, addList2);
+		}
+	}
+
+	@Test
+	public void testDeleteMMLEvents() {
+		MMLEventList eventList = new MMLEventList("cdefgab");
+		List<MMLNoteEvent> noteList = eventList.getMMLNoteEventList();
+		List<MMLNoteEvent> deleteList = new ArrayList<>();
+		deleteList.add(noteList.get(5));
+		deleteList.add(noteList.get(1));
+		deleteList.add(noteList.get(2).clone());
+		deleteList.add(new MMLNoteEvent(60, 96, 0, 8));
+		eventList.deleteMMLEvents(deleteList);
+		assertEquals(new MMLEventList("crrfgrb").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
+
+	@Test
+	public void testExtractMMLNoteEvents() {
+		MMLEventList eventList = new MMLEventList("c4d8e8f2");
+		List<MMLNoteEvent> list = eventList.extractMMLNoteEvents(96, 192);
+		assertEquals(new MMLEventList("rd8e8").getMMLNoteEventList(), list);
+		assertEquals(new MMLEventList("c4r4f2").getMMLNoteEventList(), eventList.getMMLNoteEventList());
+	}
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import jp.fourthline.mmlTools.core.TuningBase;
+
+public class MMLNoteColumnsTest {
+
+	@Test
+	public void testOf() {
+		MMLEventList eventList = new MMLEventList("c8v12d4&d4rr16e64&e64&e64");
+		eventList.getMMLNoteEventList().get(1).setMute(true);
+		MMLNoteColumns columns = MMLNoteColumns.of(eventList.getMMLNoteEventList());
+
+		assertEquals(3, columns.size());
+		assertEquals(eventList.getMMLNoteEventList(), columns.toNoteEventList());
+		assertFalse(columns.isMute(0));
+		assertTrue(columns.isMute(1));
+		assertNull(columns.getTuningBase(1));
+		assertEquals(TuningBase.L64, columns.getTuningBase(2));
+		assertEquals(12, columns.getVelocity(1));
+		assertEquals(48+192, columns.getEndTick(1));
+	}
+
+	@Test
+	public void testInsertRemove() {
+		MMLNoteColumns columns = new MMLNoteColumns(1);
+		columns.add(new MMLNoteEvent(48, 96, 0));
+		columns.add(new MMLNoteEvent(50, 96, 192));
+		columns.insert(1, new MMLNoteEvent(49, 96, 96, 10));
+		columns.insert(3, new MMLNoteEvent(51, 12, 0), 384, 48);
+
+		assertEquals(4, columns.size());
+		assertEquals(49, columns.getNote(1));
+		assertEquals(10, columns.getVelocity(1));
+		assertEquals(384, columns.getTickOffset(3));
+		assertEquals(48, columns.getTick(3));
+
+		columns.remove(0);
+		assertEquals(3, columns.size());
+		assertEquals(49, columns.getNote(0));
+		assertEquals(51, columns.getNote(2));
+
+		columns.setTick(0, 24);
+		assertEquals(new MMLNoteEvent(49, 24, 96, 10), columns.toNoteEvent(0));
+
+		columns.clear();
+		assertTrue(columns.isEmpty());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfBounds() {
+		MMLNoteColumns columns = new MMLNoteColumns();
+		columns.add(new MMLNoteEvent(48, 96, 0));
+		columns.getNote(1);
+	}
+
+	@Test
+	public void testBound() {
+		MMLNoteColumns columns = new MMLNoteColumns();
+		columns.add(new MMLNoteEvent(48, 96, 0));
+		columns.add(new MMLNoteEvent(50, 96, 96));
+		columns.add(new MMLNoteEvent(52, 96, 96));
+		columns.add(new MMLNoteEvent(53, 96, 192));
+
+		assertEquals(0, columns.lowerBound(0));
+		assertEquals(1, columns.upperBound(0));
+		assertEquals(1, columns.lowerBound(96));
+		assertEquals(3, columns.upperBound(96));
+		assertEquals(3, columns.lowerBound(100));
+		assertEquals(4, columns.lowerBound(200));
+		assertEquals(4, columns.upperBound(192));
+	}
+
+	@Test
+	public void testCursor() {
+		MMLEventList eventList = new MMLEventList("cdefg");
+		MMLNoteColumns columns = MMLNoteColumns.of(eventList.getMMLNoteEventList());
+
+		var cursor = columns.cursor();
+		int count = 0;
+		while (cursor.next()) {
+			MMLNoteEvent noteEvent = eventList.getMMLNoteEventList().get(count);
+			assertEquals(count, cursor.getIndex());
+			assertEquals(noteEvent.getNote(), cursor.getNote());
+			assertEquals(noteEvent.getTick(), cursor.getTick());
+			assertEquals(noteEvent.getTickOffset(), cursor.getTickOffset());
+			assertEquals(noteEvent.getEndTick(), cursor.getEndTick());
+			assertEquals(noteEvent.getVelocity(), cursor.getVelocity());
+			count++;
+		}
+		assertEquals(5, count);
+		assertFalse(cursor.next());
+
+		cursor.seek(192);
+		assertTrue(cursor.next());
+		assertEquals(2, cursor.getIndex());
+	}
+
+	@Test
+	public void testIndexOfMMLString() {
+		MMLEventList eventList = new MMLEventList("c8d4&d4");
+		MMLNoteEvent noteEvent = eventList.getMMLNoteEventList().get(1);
+		assertArrayEquals(new int[] { 2, 7 }, noteEvent.getIndexOfMMLString());
+		assertEquals(2, noteEvent.getIndexOfMMLStringStart());
+		assertEquals(7, noteEvent.getIndexOfMMLStringEnd());
+		assertNull(new MMLNoteEvent(48, 96, 0).getIndexOfMMLString());
+	}
+}
@@ -816,4 +816,33 @@ public class MMLScoreTest extends UseLoadingDLS {
 		score.generateAll();
 		assertEquals(true, track.getFix64());
 	}
+
+	/**
+	 * スナップショットは同じ内容で, 作成後の元のスコアへの編集の影響を受けないこと.
+	 */
+	@Test
+	public void testSnapshot() throws Exception {
+		MMLTrack track = new MMLTrack().setMML("MML@at150aa1,bbb,ccc,dd1;");
+		track.setTrackName("track1");
+		score.addTrack(track);
+		score.addTrack(new MMLTrack().setMML("MML@rrt120c,,;"));
+		score.getMarkerList().add(new Marker("marker1", 96));
+		score.addTimeSignature(new TimeSignature(score, 384, 3, 4));
+		score.generateAll();
+
+		MMLScore snapshot = score.snapshot();
+		assertArrayEquals(score.getObjectState(), snapshot.getObjectState());
+		assertEquals(score.fingerprint(), snapshot.fingerprint());
+		assertEquals(track.getMabiMML(), snapshot.getTrack(0).getMabiMML());
+		assertSame(snapshot.getTempoEventList(), snapshot.getTrack(1).getMMLEventAtIndex(0).getGlobalTempoList());
+
+		byte[] state = snapshot.getObjectState();
+		track.getMMLEventAtIndex(0).getMMLNoteEventList().get(0).setNote(50);
+		score.getTempoEventList().clear();
+		score.getMarkerList().get(0).setName("marker2");
+		score.removeTrack(1);
+		score.generateAll();
+		assertArrayEquals(state, snapshot.getObjectState());
+		assertEquals(2, snapshot.getTrackCount());
+	}
 }
@@ -663,4 +663,22 @@ public class MMLTrackTest {
 		track.generate();
 		assertEquals(mml2, track.getMabiMML());
 	}
+
+	@Test
+	public void testApplyGenerated() throws MMLExceptionList, MMLVerifyException {
+		MMLTrack track = new MMLTrack().setMML("MML@aaa,bbb,ccc,ddd;");
+		MMLTrack generatedTrack = track.clone().generate();
+		MMLTrack otherTrack = new MMLTrack().setMML("MML@aab,bbb,ccc,ddd;").generate();
+
+		// MMLが異なるトラックは反映しない.
+		assertFalse(track.applyGenerated(otherTrack));
+		assertEquals("*", track.mmlRankFormat().substring(0, 1));
+
+		assertTrue(track.applyGenerated(generatedTrack));
+		assertArrayEquals(generatedTrack.getMabiMMLArray(), track.getMabiMMLArray());
+		assertEquals(generatedTrack.mmlRankFormat(), track.mmlRankFormat());
+
+		// generate済みのトラックには反映しない.
+		assertFalse(track.applyGenerated(generatedTrack));
+	}
 }
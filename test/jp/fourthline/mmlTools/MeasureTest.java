@@ -84,4 +84,33 @@ public final class MeasureTest {
 		assertEquals("6", new Measure(score, 384+384+384).timeCount());
 		assertEquals("8", new Measure(score, 384+384+384).timeBase());
 	}
+
+	@Test
+	public void test_measureGrid() throws MMLException {
+		score.addTimeSignature(new TimeSignature(score, 384, 3, 4));
+		score.addTimeSignature(new TimeSignature(score, 384+288*2, 6, 8));
+		var grid = score.getMeasureGrid();
+		assertSame(grid, score.getMeasureGrid());
+
+		for (int m = 0; m < 10; m++) {
+			int tick = grid.measureToTick(m);
+			assertEquals(m, grid.tickToMeasure(tick));
+			assertEquals(tick, grid.measuredTick(tick + grid.measureTickAt(tick) - 1));
+		}
+		assertEquals(960, grid.measureToTick(3));
+		assertEquals(960+288, grid.measureToTick(4));
+
+		StringBuilder sb = new StringBuilder();
+		grid.forEachBeat(400, 1100, (tick, measure, beat, beatTick) -> sb.append(tick+":"+measure+":"+beat+" "));
+		assertEquals("384:1:0 480:1:1 576:1:2 672:2:0 768:2:1 864:2:2 960:3:0 1008:3:1 1056:3:2 ", sb.toString());
+
+		sb.setLength(0);
+		grid.forEachMeasure(0, 1248, (tick, measure) -> sb.append(tick+":"+measure+" "));
+		assertEquals("0:0 384:1 672:2 960:3 ", sb.toString());
+
+		// 拍子の変更で作り直す.
+		score.setBaseTime("3/4");
+		assertNotSame(grid, score.getMeasureGrid());
+		assertEquals(288, score.getMeasureGrid().measureToTick(1));
+	}
 }
@@ -9,6 +9,8 @@ import static org.junit.Assert.*;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.junit.Test;
 
@@ -48,4 +50,34 @@ public final class MMLTickTableTest extends FileSelect {
 		assertNotNull(tickTable);
 		assertEquals(750, tickTable.getInvTable().validCount());
 	}
+
+	/**
+	 * バイナリ形式で出力したテーブルが, 組み合わせ探索で生成したテーブルと一致すること.
+	 */
+	@Test
+	public void test_binaryInvTable() throws IOException {
+		MMLTickTable tickTable1 = new MMLTickTable(null);
+		ByteArrayOutputStream binaryStream = new ByteArrayOutputStream();
+		tickTable1.writeBinaryInvTable(binaryStream);
+		MMLTickTable tickTable2 = MMLTickTable.createFromBinary(ByteBuffer.wrap(binaryStream.toByteArray()));
+
+		ByteArrayOutputStream outputStream1 = new ByteArrayOutputStream();
+		ByteArrayOutputStream outputStream2 = new ByteArrayOutputStream();
+		tickTable1.writeToOutputStreamInvTable(outputStream1);
+		tickTable2.writeToOutputStreamInvTable(outputStream2);
+		assertEquals(outputStream1.toString(), outputStream2.toString());
+		assertEquals(tickTable1.getInvTable().max(), tickTable2.getInvTable().max());
+
+		// ビルド時に生成したリソースがある場合は, それも一致すること.
+		try (InputStream resource = MMLTickTable.class.getResourceAsStream(MMLTickTable.BINARY_TABLE)) {
+			if (resource != null) {
+				assertArrayEquals(binaryStream.toByteArray(), resource.readAllBytes());
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void test_binaryInvTableInvalid() throws IOException {
+		MMLTickTable.createFromBinary(ByteBuffer.wrap(new byte[] { 'M', 'T', 'T', '1' }));
+	}
 }
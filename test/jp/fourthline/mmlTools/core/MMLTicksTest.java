@@ -105,4 +105,26 @@ public final class MMLTicksTest {
 	public void test_minimumTick() {
 		assertEquals(6, MMLTicks.minimumTick());
 	}
+
+	/**
+	 * 既存の文字列の後ろに追加. 失敗した場合は何も追加しない.
+	 */
+	@Test
+	public void test_appendMMLText() throws MMLException {
+		StringBuilder sb = new StringBuilder("v8");
+		new MMLTicks("c", 96*4*2 + 96 + 48).appendMMLText(sb);
+		assertEquals("v8c1.&c2&c4.", sb.toString());
+		assertEquals("c1.&c2&c4.", new MMLTicks("c", 96*4*2 + 96 + 48).toMMLText());
+
+		sb = new StringBuilder("v8");
+		new MMLTicks("r", 96*4*2 + 96 + 48, false).appendMMLText(sb);
+		assertEquals("v8r1.r2r4.", sb.toString());
+
+		try {
+			new MMLTicks("c", 1).appendMMLText(sb);
+			fail();
+		} catch (MMLException e) {
+			assertEquals("v8r1.r2r4.", sb.toString());
+		}
+	}
 }
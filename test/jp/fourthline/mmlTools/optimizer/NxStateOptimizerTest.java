@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools.optimizer;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import jp.fourthline.mmlTools.MMLBuilder;
+import jp.fourthline.mmlTools.MMLEventList;
+import jp.fourthline.mmlTools.core.MMLTokenizer;
+
+/**
+ * NxStateOptimizer が NxOptimizer, NxBpCmOptimizer と同じ結果になることのテスト.
+ */
+public class NxStateOptimizerTest {
+
+	private static final String[] LENGTH = { "", "", "", "4", "8", "16", "8.", "2", "1", "12", "64" };
+	private static final String[] NOTE = { "c", "d", "e", "f", "g", "a", "b", "c+", "b-", "c-", "b+", "r" };
+
+	private static String randomMML(Random random, int count) {
+		StringBuilder sb = new StringBuilder();
+		int octave = 4;
+		for (int i = 0; i < count; i++) {
+			int r = random.nextInt(20);
+			if (r < 3) {
+				// o1~o7 の範囲
+				boolean down = (octave >= 7) || ((octave > 1) && random.nextBoolean());
+				sb.append(down ? '<' : '>');
+				octave += down ? -1 : 1;
+			} else if (r == 3) {
+				octave = 1 + random.nextInt(7);
+				sb.append('o').append(octave);
+			} else if (r == 4) {
+				sb.append('l').append(LENGTH[3 + random.nextInt(LENGTH.length - 3)]);
+			} else if (r == 5) {
+				sb.append('v').append(random.nextInt(16));
+			} else if (r == 6) {
+				sb.append('t').append(60 + random.nextInt(200));
+			} else {
+				sb.append(NOTE[random.nextInt(NOTE.length)]).append(LENGTH[random.nextInt(LENGTH.length)]);
+				if (random.nextInt(8) == 0) {
+					sb.append('&');
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String optimize(MMLStringOptimizer.Optimizer optimizer, String mml) {
+		new MMLTokenizer(mml).forEachRemaining(optimizer::nextToken);
+		return optimizer.getMinString();
+	}
+
+	private static void checkEquals(String mml, Supplier<MMLStringOptimizer.Optimizer> expect, Supplier<NxStateOptimizer> actual) {
+		String expectString = optimize(expect.get(), mml);
+		NxStateOptimizer optimizer = actual.get();
+		assertEquals(mml, expectString, optimize(optimizer, mml));
+		assertEquals(mml, expectString.length(), optimizer.getMinLength());
+	}
+
+	private static void checkAll(String mml) {
+		checkEquals(mml, () -> new NxOptimizer(), () -> NxStateOptimizer.createNx());
+		checkEquals(mml, () -> new NxBpCmOptimizer(false), () -> NxStateOptimizer.createNxBpCm(false));
+		checkEquals(mml, () -> new NxBpCmOptimizer(true), () -> NxStateOptimizer.createNxBpCm(true));
+		checkEquals(mml, () -> new NxBpCmOptimizer(5, "v12", false), () -> NxStateOptimizer.createNxBpCm(5, "v12", false));
+	}
+
+	@Test
+	public void testPattern() {
+		checkAll("");
+		checkAll("c");
+		checkAll("<b>c<b>c");
+		checkAll("o2co6co2co6c");
+		checkAll(">c<b>>>c<<<b-8c+8");
+		checkAll("l16o5cdefgab>c<bagfedc");
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(36);
+		for (int i = 0; i < 2000; i++) {
+			checkAll(randomMML(random, 1 + random.nextInt(80)));
+		}
+	}
+
+	/**
+	 * MMLBuilderの出力 (最適化の入力になるMML) での比較.
+	 */
+	@Test
+	public void testBuilderOutput() throws Exception {
+		Random random = new Random(360);
+		for (int i = 0; i < 200; i++) {
+			String mml = MMLBuilder.create(new MMLEventList(randomMML(random, 60))).toMMLString(true, true);
+			checkAll(mml);
+			checkAll(optimize(new OxLxFixedOptimizer(false), mml));
+		}
+	}
+}
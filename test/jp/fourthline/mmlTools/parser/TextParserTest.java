@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 たんらる
+ */
+
+package jp.fourthline.mmlTools.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TextParserTest {
+
+	@Test
+	public void testParse() {
+		List<String> list = new ArrayList<>();
+		new TextParser()
+		.pattern("name=", t -> list.add("name:" + t))
+		.pattern("volume=", t -> list.add("volume:" + t))
+		.pattern("volumn=", t -> list.add("volumn:" + t))
+		.parse("name=a=b\nvolume=8\nvolumn=9\nnames=x\nvolume\n\nname=");
+
+		assertEquals(List.of("name:a=b", "volume:8", "volumn:9", "name:"), list);
+	}
+
+	@Test
+	public void testParse_prefix() {
+		List<String> list = new ArrayList<>();
+		new TextParser()
+		.pattern("label", t -> list.add("label:" + t))
+		.pattern("position", t -> list.add("position:" + t))
+		.parse("label1=A\nposition1=96\nlabel");
+
+		assertEquals(List.of("label:1=A", "position:1=96", "label:"), list);
+	}
+
+	@Test
+	public void testParse_reader() throws IOException {
+		List<String> list = new ArrayList<>();
+		new TextParser()
+		.pattern("title=", t -> list.add(t))
+		.parse(new StringReader("title=A\r\ntitle=B\n"));
+
+		assertEquals(List.of("A", "B"), list);
+	}
+
+	@Test
+	public void testReadSections() throws IOException {
+		List<String> list = new ArrayList<>();
+		boolean result = SectionContents.readSections(new StringReader("x\n[a]\n1\n2\n[b]\n3"), (name, line) -> list.add(name + line));
+
+		assertTrue(result);
+		assertEquals(List.of("[a]1", "[a]2", "[b]3"), list);
+		assertFalse(SectionContents.readSections(new StringReader("x\ny"), (name, line) -> fail()));
+	}
+}